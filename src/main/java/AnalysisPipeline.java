@@ -0,0 +1,332 @@
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Three-stage analysis pipeline: an I/O stage reading files on virtual threads, a CPU
+ * stage analyzing them on a pool sized to the number of cores, and a publish stage that
+ * hands squares out in listing order. Bounded queues between the stages apply backpressure,
+ * and each stage reports its queue depth and throughput. A cancelled pipeline stops
+ * starting reads and analyses and {@link #run} throws {@link CancellationException}.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public class AnalysisPipeline {
+
+    /**
+     * Returns the square for a file without reading it, or null if the file has to be read.
+     */
+    @FunctionalInterface
+    public interface Shortcut {
+        Square reuse(String path, String contentId);
+    }
+
+    @FunctionalInterface
+    public interface Analyzer {
+        Square analyze(String path, String content, String contentId) throws Exception;
+    }
+
+    /**
+     * Point-in-time view of one stage.
+     */
+    public record StageStats(String name, long processed, double perSecond, int queueDepth, int queueCapacity,
+                             double utilization) {
+        @Override
+        public String toString() {
+            String queue = queueCapacity > 0 ? String.format(", queue %d/%d", queueDepth, queueCapacity) : "";
+            return String.format("%s: %d done, %.1f/s%s, busy %.0f%%",
+                    name, processed, perSecond, queue, utilization * 100);
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisPipeline.class);
+    private static final long STATS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final RepositorySource source;
+    private final List<String> paths;
+    private final int maxConcurrentReads;
+    private final int analyzerThreads;
+    private final Shortcut shortcut;
+    private final Analyzer analyzer;
+
+    private final BlockingQueue<Item> fetched;
+    private final BlockingQueue<Item> analyzed;
+    private final Stage fetchStage;
+    private final Stage analyzeStage;
+    private final Stage publishStage;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+    private long startNanos;
+
+    public AnalysisPipeline(RepositorySource source, List<String> paths, int maxConcurrentReads,
+                            Shortcut shortcut, Analyzer analyzer) {
+        this.source = source;
+        this.paths = paths;
+        this.maxConcurrentReads = maxConcurrentReads;
+        this.analyzerThreads = Runtime.getRuntime().availableProcessors();
+        this.shortcut = shortcut;
+        this.analyzer = analyzer;
+        this.fetched = new ArrayBlockingQueue<>(Math.max(16, analyzerThreads * 4));
+        this.analyzed = new ArrayBlockingQueue<>(Math.max(16, analyzerThreads * 4));
+        this.fetchStage = new Stage("fetch", null, source.isSequential() ? 1 : maxConcurrentReads);
+        this.analyzeStage = new Stage("analyze", fetched, analyzerThreads);
+        this.publishStage = new Stage("publish", analyzed, 1);
+    }
+
+    /**
+     * Runs all stages and passes every square to the publisher in the order of the path list.
+     * Blocks until every file has been published or a stage fails.
+     */
+    public void run(Consumer<Square> publisher) throws Exception {
+        startNanos = System.nanoTime();
+        logger.info("Pipeline starting: {} files, {} concurrent reads, {} analyzer threads",
+                paths.size(), source.isSequential() ? 1 : maxConcurrentReads, analyzerThreads);
+
+        ExecutorService analyzers = Executors.newFixedThreadPool(analyzerThreads);
+        Thread reader = Thread.ofVirtual().name("pipeline-fetch").start(this::fetchAll);
+        try {
+            for (int i = 0; i < analyzerThreads; i++) {
+                analyzers.execute(this::analyzeAll);
+            }
+            publishAll(publisher);
+        } finally {
+            reader.interrupt();
+            analyzers.shutdownNow();
+        }
+        logger.info("Pipeline finished in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        logStats();
+    }
+
+    /**
+     * Stops the pipeline from any thread. Reads and analyses already running finish, but their
+     * results are discarded.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public List<StageStats> getStats() {
+        long now = System.nanoTime();
+        return List.of(fetchStage.snapshot(now), analyzeStage.snapshot(now), publishStage.snapshot(now));
+    }
+
+    private void logStats() {
+        for (StageStats stats : getStats()) {
+            logger.info("Pipeline {}", stats);
+        }
+    }
+
+    // I/O stage: one sequential pass, or one virtual thread per file with bounded reads in flight
+    private void fetchAll() {
+        try {
+            if (source.isSequential()) {
+                Map<String, Integer> indexes = new HashMap<>();
+                for (int i = 0; i < paths.size(); i++) {
+                    indexes.put(paths.get(i), i);
+                }
+                boolean[] seen = new boolean[paths.size()];
+                long[] readStart = {System.nanoTime()};
+                source.forEachFile(indexes::containsKey, (path, content) -> {
+                    if (cancelled) {
+                        throw new CancellationException("Analysis cancelled");
+                    }
+                    // Time spent inside the source since the previous entry is the read time
+                    fetchStage.done(readStart[0]);
+                    int index = indexes.get(path);
+                    if (!seen[index]) {
+                        seen[index] = true;
+                        fetched.put(new Item(index, path, content, null));
+                    }
+                    readStart[0] = System.nanoTime();
+                });
+                for (int i = 0; i < seen.length; i++) {
+                    if (!seen[i]) {
+                        throw new IOException("File listed but not found while streaming: " + paths.get(i));
+                    }
+                }
+            } else {
+                Semaphore permits = new Semaphore(maxConcurrentReads);
+                try (ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor()) {
+                    for (int i = 0; i < paths.size() && !cancelled; i++) {
+                        int index = i;
+                        readers.execute(() -> fetchOne(index, permits));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            fail(e);
+        } finally {
+            try {
+                for (int i = 0; i < analyzerThreads; i++) {
+                    fetched.put(Item.END);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void fetchOne(int index, Semaphore permits) {
+        String path = paths.get(index);
+        try {
+            String contentId = source.getContentId(path);
+            Square reused = shortcut.reuse(path, contentId);
+            if (reused != null) {
+                analyzed.put(new Item(index, path, reused));
+                return;
+            }
+
+            // The permit is held until the content is queued, so a full queue throttles reads
+            permits.acquire();
+            try {
+                if (cancelled) {
+                    return;
+                }
+                long start = System.nanoTime();
+                String content = source.readFile(path);
+                fetchStage.done(start);
+                fetched.put(new Item(index, path, content, contentId));
+            } finally {
+                permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    // CPU stage
+    private void analyzeAll() {
+        try {
+            while (true) {
+                Item item = fetched.take();
+                if (item == Item.END || cancelled) {
+                    return;
+                }
+                long start = System.nanoTime();
+                Square square = analyzer.analyze(item.path, item.content, item.contentId);
+                analyzeStage.done(start);
+                analyzed.put(new Item(item.index, item.path, square));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    // Publish stage: squares arrive out of order and are released in listing order
+    private void publishAll(Consumer<Square> publisher) throws Exception {
+        Square[] pending = new Square[paths.size()];
+        int next = 0;
+        long lastStats = System.nanoTime();
+
+        while (next < paths.size()) {
+            Item item = analyzed.poll(100, TimeUnit.MILLISECONDS);
+            if (cancelled) {
+                throw new CancellationException("Analysis cancelled");
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            if (item != null) {
+                pending[item.index] = item.square;
+                while (next < pending.length && pending[next] != null) {
+                    long start = System.nanoTime();
+                    publisher.accept(pending[next]);
+                    pending[next++] = null;
+                    publishStage.done(start);
+                }
+            }
+            long now = System.nanoTime();
+            if (now - lastStats >= STATS_INTERVAL_NANOS) {
+                lastStats = now;
+                if (logger.isDebugEnabled()) {
+                    for (StageStats stats : getStats()) {
+                        logger.debug("Pipeline {}", stats);
+                    }
+                }
+            }
+        }
+    }
+
+    private void fail(Exception e) {
+        if (!cancelled && failure.compareAndSet(null, e)) {
+            logger.error("Pipeline stage failed", e);
+        }
+    }
+
+    private static final class Item {
+        static final Item END = new Item(-1, null, null);
+
+        final int index;
+        final String path;
+        final String content;
+        final String contentId;
+        final Square square;
+
+        Item(int index, String path, String content, String contentId) {
+            this.index = index;
+            this.path = path;
+            this.content = content;
+            this.contentId = contentId;
+            this.square = null;
+        }
+
+        Item(int index, String path, Square square) {
+            this.index = index;
+            this.path = path;
+            this.content = null;
+            this.contentId = null;
+            this.square = square;
+        }
+    }
+
+    private final class Stage {
+        private final String name;
+        private final BlockingQueue<Item> input;
+        private final int workers;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        Stage(String name, BlockingQueue<Item> input, int workers) {
+            this.name = name;
+            this.input = input;
+            this.workers = workers;
+        }
+
+        void done(long startNanos) {
+            processed.incrementAndGet();
+            busyNanos.addAndGet(System.nanoTime() - startNanos);
+        }
+
+        StageStats snapshot(long now) {
+            double elapsedSeconds = Math.max(1e-9, (now - startNanos) / 1e9);
+            long count = processed.get();
+            double utilization = Math.min(1.0, busyNanos.get() / 1e9 / elapsedSeconds / workers);
+            int depth = input != null ? input.size() : 0;
+            int capacity = input != null ? depth + input.remainingCapacity() : 0;
+            return new StageStats(name, count, count / elapsedSeconds, depth, capacity, utilization);
+        }
+    }
+}
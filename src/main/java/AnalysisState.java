@@ -0,0 +1,113 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Result of one analysis run, kept so that a reload can reuse the squares of files
+ * whose content has not changed.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public class AnalysisState {
+
+    /**
+     * A square together with the content ID (git blob SHA) it was computed from and the
+     * hashes of the capitalized identifiers in that content, see {@link JavaSource#typeNameHashes()}.
+     */
+    public record Entry(String contentId, int[] typeNames, Square square) {
+
+        /**
+         * Whether the file may use one of the given class names as an identifier; false means
+         * a class by any of these names cannot change its analysis.
+         */
+        public boolean mayReference(Set<String> classNames) {
+            return AnalysisState.mayReference(typeNames, classNames);
+        }
+    }
+
+    private final String url;
+    private final Set<String> classNames;
+    private final ClassSymbolTable symbols;
+    private final Map<String, Entry> entries;
+
+    public AnalysisState(String url, Set<String> classNames, ClassSymbolTable symbols) {
+        this.url = url;
+        this.classNames = Set.copyOf(classNames);
+        this.symbols = symbols;
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Set<String> getClassNames() {
+        return classNames;
+    }
+
+    public ClassSymbolTable getSymbols() {
+        return symbols;
+    }
+
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public void put(String path, String contentId, int[] typeNames, Square square) {
+        entries.put(path, new Entry(contentId, typeNames, square));
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    public boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    /**
+     * Whether any of the class names hashes to one of the given type name hashes.
+     */
+    public static boolean mayReference(int[] typeNames, Set<String> classNames) {
+        for (String className : classNames) {
+            if (Arrays.binarySearch(typeNames, className.hashCode()) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static Set<String> difference(Set<String> a, Set<String> b) {
+        Set<String> result = new HashSet<>(a);
+        result.removeAll(b);
+        return result;
+    }
+
+    /**
+     * Computes the git blob SHA of the content, so hashes of fetched files can be
+     * compared directly with SHAs reported by the trees API.
+     */
+    public static String contentId(String content) {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("blob " + body.length + "\0").getBytes(StandardCharsets.UTF_8));
+            digest.update(body);
+            StringBuilder hex = new StringBuilder(40);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+}
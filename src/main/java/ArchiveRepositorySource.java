@@ -0,0 +1,370 @@
+import io.github.cdimascio.dotenv.Dotenv;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repository source that reads a .zip or .tar.gz archive of a repository in a single
+ * streaming pass, decompressing one entry at a time without extracting anything to disk.
+ * A single top-level folder (as in GitHub archives) is stripped from entry names.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public class ArchiveRepositorySource implements RepositorySource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveRepositorySource.class);
+    private final Path archive;
+    private final boolean deleteOnClose;
+    private final boolean zip;
+    private List<String> listing;
+    private String rootPrefix = "";
+
+    public ArchiveRepositorySource(Path archive, boolean deleteOnClose) throws IOException {
+        this.archive = archive;
+        this.deleteOnClose = deleteOnClose;
+        this.zip = isZip(archive);
+        logger.info("Reading {} archive {}", zip ? "zip" : "tar.gz", archive);
+    }
+
+    public static boolean isArchive(String location) {
+        String lower = location.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".zip") || lower.endsWith(".tar.gz") || lower.endsWith(".tgz")
+                || lower.contains("/zipball/") || lower.contains("/tarball/");
+    }
+
+    /**
+     * Downloads a remote archive to a temporary file. The file is kept compressed and
+     * deleted again when the source is closed.
+     */
+    public static ArchiveRepositorySource download(String url) throws IOException {
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+        String token = Dotenv.configure().ignoreIfMissing().load().get("GITHUB_TOKEN");
+        if (token != null && !token.isEmpty() && url.contains("github.com")) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        Path temp = Files.createTempFile("githubviz-archive", ".bin");
+        try {
+            logger.info("Downloading archive {}", url);
+            HttpResponse<Path> response = client.send(request.build(), HttpResponse.BodyHandlers.ofFile(temp));
+            if (response.statusCode() != 200) {
+                throw new IOException("Archive download returned HTTP " + response.statusCode());
+            }
+            return new ArchiveRepositorySource(temp, true);
+        } catch (InterruptedException e) {
+            Files.deleteIfExists(temp);
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive download interrupted", e);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Lists entries from the zip central directory, or from a header-only scan of a tarball.
+     */
+    @Override
+    public List<String> listFiles() throws IOException {
+        if (listing != null) {
+            return listing;
+        }
+        List<String> names = new ArrayList<>();
+        if (zip) {
+            try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory()) {
+                        names.add(entry.getName());
+                    }
+                }
+            }
+        } else {
+            try (TarReader tar = openTar()) {
+                while (tar.next()) {
+                    if (tar.isFile()) {
+                        names.add(tar.name);
+                    }
+                }
+            }
+        }
+
+        rootPrefix = commonRoot(names);
+        listing = new ArrayList<>(names.size());
+        for (String name : names) {
+            listing.add(name.substring(rootPrefix.length()));
+        }
+        logger.info("Archive contains {} files", listing.size());
+        return listing;
+    }
+
+    @Override
+    public String readFile(String path) throws IOException {
+        listFiles();
+        if (zip) {
+            try (ZipFile zipFile = new ZipFile(archive.toFile())) {
+                ZipEntry entry = zipFile.getEntry(rootPrefix + path);
+                if (entry == null) {
+                    throw new IOException("No such entry: " + path);
+                }
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        // Tarballs have no index, so random access falls back to a scan
+        try (TarReader tar = openTar()) {
+            while (tar.next()) {
+                if (tar.isFile() && tar.name.equals(rootPrefix + path)) {
+                    return new String(tar.readData(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new IOException("No such entry: " + path);
+    }
+
+    @Override
+    public boolean isSequential() {
+        return true;
+    }
+
+    @Override
+    public void forEachFile(Predicate<String> filter, FileConsumer consumer) throws Exception {
+        listFiles();
+        if (zip) {
+            try (ZipInputStream in = new ZipInputStream(new BufferedInputStream(Files.newInputStream(archive)))) {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    String path = stripRoot(entry.getName());
+                    if (!entry.isDirectory() && path != null && filter.test(path)) {
+                        consumer.accept(path, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        } else {
+            try (TarReader tar = openTar()) {
+                while (tar.next()) {
+                    String path = stripRoot(tar.name);
+                    if (tar.isFile() && path != null && filter.test(path)) {
+                        consumer.accept(path, new String(tar.readData(), StandardCharsets.UTF_8));
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (deleteOnClose) {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    private String stripRoot(String name) {
+        return name.startsWith(rootPrefix) ? name.substring(rootPrefix.length()) : null;
+    }
+
+    private TarReader openTar() throws IOException {
+        return new TarReader(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(archive)), 65536));
+    }
+
+    private static boolean isZip(Path archive) throws IOException {
+        try (InputStream in = Files.newInputStream(archive)) {
+            byte[] magic = in.readNBytes(2);
+            if (magic.length == 2 && magic[0] == 'P' && magic[1] == 'K') {
+                return true;
+            }
+            if (magic.length == 2 && (magic[0] & 0xFF) == 0x1F && (magic[1] & 0xFF) == 0x8B) {
+                return false;
+            }
+        }
+        throw new IOException("Not a zip or gzip archive: " + archive);
+    }
+
+    private static String commonRoot(List<String> names) {
+        if (names.isEmpty()) {
+            return "";
+        }
+        int slash = names.get(0).indexOf('/');
+        if (slash < 0) {
+            return "";
+        }
+        String root = names.get(0).substring(0, slash + 1);
+        for (String name : names) {
+            if (!name.startsWith(root)) {
+                return "";
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Minimal reader for ustar/GNU/PAX tar streams: regular files, long names and PAX paths.
+     */
+    private static final class TarReader implements AutoCloseable {
+
+        private static final int BLOCK = 512;
+        private final InputStream in;
+        private final byte[] header = new byte[BLOCK];
+        private long remaining;
+        private long padding;
+        private String name;
+        private char type;
+
+        private TarReader(InputStream in) {
+            this.in = in;
+        }
+
+        boolean next() throws IOException {
+            skipData();
+            String overrideName = null;
+            while (true) {
+                if (in.readNBytes(header, 0, BLOCK) < BLOCK || isZeroBlock()) {
+                    return false;
+                }
+                type = (char) header[156];
+                long size = parseSize();
+                remaining = size;
+                padding = (BLOCK - size % BLOCK) % BLOCK;
+
+                String entryName = text(header, 0, 100);
+                if (text(header, 257, 6).startsWith("ustar")) {
+                    String prefix = text(header, 345, 155);
+                    if (!prefix.isEmpty()) {
+                        entryName = prefix + "/" + entryName;
+                    }
+                }
+
+                if (type == 'L') {
+                    byte[] data = readData();
+                    overrideName = text(data, 0, data.length);
+                } else if (type == 'x') {
+                    String paxPath = paxPath(readData());
+                    if (paxPath != null) {
+                        overrideName = paxPath;
+                    }
+                } else if (type == 'g') {
+                    skipData();
+                } else {
+                    name = overrideName != null ? overrideName : entryName;
+                    return true;
+                }
+            }
+        }
+
+        boolean isFile() {
+            return type == '0' || type == '\0';
+        }
+
+        byte[] readData() throws IOException {
+            if (remaining > Integer.MAX_VALUE) {
+                throw new IOException("Tar entry too large: " + name);
+            }
+            byte[] data = in.readNBytes((int) remaining);
+            if (data.length < remaining) {
+                throw new IOException("Truncated tar entry: " + name);
+            }
+            remaining = 0;
+            in.skipNBytes(padding);
+            padding = 0;
+            return data;
+        }
+
+        private void skipData() throws IOException {
+            if (remaining + padding > 0) {
+                in.skipNBytes(remaining + padding);
+            }
+            remaining = 0;
+            padding = 0;
+        }
+
+        private boolean isZeroBlock() {
+            for (byte b : header) {
+                if (b != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long parseSize() {
+            // Base-256 encoding is used for entries over 8 GB
+            if ((header[124] & 0x80) != 0) {
+                long size = 0;
+                for (int i = 125; i < 136; i++) {
+                    size = (size << 8) | (header[i] & 0xFF);
+                }
+                return size;
+            }
+            long size = 0;
+            for (int i = 124; i < 136; i++) {
+                byte b = header[i];
+                if (b >= '0' && b <= '7') {
+                    size = size * 8 + (b - '0');
+                }
+            }
+            return size;
+        }
+
+        private static String text(byte[] bytes, int offset, int length) {
+            int end = offset;
+            while (end < offset + length && bytes[end] != 0) {
+                end++;
+            }
+            return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+        }
+
+        private static String paxPath(byte[] records) {
+            // Each record is "<length> <key>=<value>\n", where length counts bytes
+            int pos = 0;
+            while (pos < records.length) {
+                int space = pos;
+                while (space < records.length && records[space] != ' ') {
+                    space++;
+                }
+                if (space >= records.length) {
+                    return null;
+                }
+                int length = Integer.parseInt(new String(records, pos, space - pos, StandardCharsets.US_ASCII));
+                int end = Math.min(records.length, pos + length - 1);
+                String record = new String(records, space + 1, end - space - 1, StandardCharsets.UTF_8);
+                if (record.startsWith("path=")) {
+                    return record.substring(5);
+                }
+                pos += length;
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
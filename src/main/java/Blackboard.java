@@ -1,36 +1,89 @@
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeSupport;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
-import java.util.Vector;
-import java.util.stream.Collectors;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
+import java.util.RandomAccess;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Blackboard class to manage squares and notify listeners about state changes.
+ * Readers get immutable {@link BlackboardSnapshot}s; the loading thread builds the next
+ * version under the blackboard's lock and swaps it in atomically. Listeners are always called
+ * on the EDT, with events from the loading thread coalesced into one delivery per frame.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.5
+ * @version 1.12
  */
 public class Blackboard extends PropertyChangeSupport {
 
     private static final Logger logger = LoggerFactory.getLogger(Blackboard.class);
+    private static final int STATUS_UPDATES_PER_SECOND = 10;
     private static Blackboard instance;
-    private Vector<Square> squares;
+    private final EdtEventDispatcher events = new EdtEventDispatcher(super::firePropertyChange)
+            .latestOnly("statusMessage", STATUS_UPDATES_PER_SECOND)
+            .latestOnly("historyStatusMessage", STATUS_UPDATES_PER_SECOND)
+            .merged("squaresAdded")
+            .discards("blackboardCleared", "squaresAdded", "blackboardReady");
+    private volatile BlackboardSnapshot snapshot = BlackboardSnapshot.EMPTY;
     private boolean ready = false;
     private boolean loading = false;
     private String statusMessage = "";
     private String selectedFileName = "";
+    private String selectedFilePath = "";
     private String selectedFolderPath = "";
+    private AnalysisState analysisState;
+    private final PackageMetrics packageMetrics = new PackageMetrics();
+
+    // Every load gets a new generation; writes tagged with an older generation are dropped
+    private volatile long generation;
+    private Delegate activeJob;
+    private Thread activeThread;
+
+    // Metric history runs on its own thread, next to any load
+    private HistoryAnalyzer historyJob;
+    private Thread historyThread;
+    private volatile MetricHistory metricHistory;
+    private String historyStatusMessage = "";
+
+    // Progressive publishing: squares are released to listeners in batches while a load runs
+    private static final int BATCH_SIZE = 100;
+    private static final long BATCH_INTERVAL_NANOS = 200_000_000L;
+    private final List<Integer> pendingBatch = new ArrayList<>();
+    private long lastBatchNanos = System.nanoTime();
+    private boolean linkOnAdd = true;
+    private ClassSymbolTable symbols = new ClassSymbolTable(List.of());
+    private int[] indexByClassId = new int[0];
+    private IdList[] waitingFor = new IdList[0];
+
+    // Next version, guarded by this: squares in load order and their incoming edges, which are
+    // copied into the squares when the version is published
+    private final SquareChunks working = new SquareChunks();
+    private final List<IdList> workingAfferent = new ArrayList<>();
+    private final BitSet afferentChanged = new BitSet();
+    private long version;
 
     private Blackboard() {
         super(new Object());
-        squares = new Vector<>();
         logger.info("Blackboard initialized");
     }
 
+    /**
+     * Every event goes through the dispatcher, so listeners only ever run on the EDT.
+     */
+    @Override
+    public void firePropertyChange(PropertyChangeEvent event) {
+        events.post(event);
+    }
+
     public static Blackboard getInstance() {
         if (instance == null) {
             instance = new Blackboard();
@@ -39,12 +92,24 @@ public class Blackboard extends PropertyChangeSupport {
     }
 
     public void loadFromUrl(String url) {
+        loadFromUrl(url, false);
+    }
+
+    public void reloadFromUrl(String url) {
+        loadFromUrl(url, true);
+    }
+
+    private void loadFromUrl(String url, boolean incremental) {
         try {
-            logger.info("Starting load from URL: {}", url);
+            logger.info("Starting {} load from URL: {}", incremental ? "incremental" : "full", url);
             setStatusMessage("Initiating load from URL...");
-            Delegate delegate = new Delegate(url);
-            Thread t = new Thread(delegate);
-            t.start();
+            synchronized (this) {
+                cancelActiveJob();
+                long jobGeneration = ++generation;
+                activeJob = new Delegate(url, 0, incremental, jobGeneration);
+                activeThread = new Thread(activeJob, "analysis-" + jobGeneration);
+                activeThread.start();
+            }
         } catch (Exception e) {
             logger.error("Failed to load from URL: {}", url, e);
             setStatusMessage("Error: Failed to start loading");
@@ -52,39 +117,281 @@ public class Blackboard extends PropertyChangeSupport {
         }
     }
 
-    public void addSquare(Square square) {
-        squares.add(square);
+    /**
+     * Starts recording the metrics of a local checkout over its most recent commits, replacing
+     * any history that is still being recorded.
+     */
+    public synchronized void loadHistory(String location, int maxCommits) {
+        cancelHistory();
+        logger.info("Starting history of {} over {} commits", location, maxCommits);
+        historyJob = new HistoryAnalyzer(location, maxCommits);
+        historyThread = new Thread(historyJob, "history");
+        historyThread.start();
+    }
+
+    private void cancelHistory() {
+        if (historyJob != null && historyThread.isAlive()) {
+            logger.info("Cancelling history");
+            historyJob.cancel();
+            historyThread.interrupt();
+        }
+        historyJob = null;
+        historyThread = null;
+    }
+
+    /**
+     * Publishes the history recorded by a job, unless a newer one has started since.
+     */
+    public synchronized void setMetricHistory(HistoryAnalyzer job, MetricHistory history) {
+        if (job != historyJob) {
+            return;
+        }
+        MetricHistory old = metricHistory;
+        metricHistory = history;
+        firePropertyChange("metricHistoryReady", old, history);
+    }
+
+    public MetricHistory getMetricHistory() {
+        return metricHistory;
+    }
+
+    /**
+     * Progress of a history job, kept apart from the load status so the two never overwrite
+     * each other. Dropped if a newer job has started since.
+     */
+    public synchronized void setHistoryStatusMessage(HistoryAnalyzer job, String message) {
+        if (job != historyJob) {
+            return;
+        }
+        String oldMessage = historyStatusMessage;
+        historyStatusMessage = message;
+        logger.info("History status: {}", message);
+        firePropertyChange("historyStatusMessage", oldMessage, message);
+    }
+
+    public synchronized String getHistoryStatusMessage() {
+        return historyStatusMessage;
+    }
+
+    public boolean isCurrent(long generation) {
+        return this.generation == generation;
+    }
+
+    /**
+     * Stops the running load, if any. Its remaining results are dropped.
+     */
+    public synchronized void cancelLoad() {
+        cancelActiveJob();
+        generation++;
+    }
+
+    private void cancelActiveJob() {
+        if (activeJob != null && activeThread.isAlive()) {
+            logger.info("Cancelling analysis generation {}", activeJob.getGeneration());
+            activeJob.cancel();
+            activeThread.interrupt();
+        }
+        activeJob = null;
+        activeThread = null;
+    }
+
+    /**
+     * Prepares for a new load.
+     *
+     * @param linkOnAdd compute afferent edges as squares arrive; an incremental load
+     *                  leaves them to {@link #setReady(long)} instead
+     * @param symbols   symbol table every square of this load is expressed in
+     */
+    public synchronized void beginLoad(long generation, boolean linkOnAdd, ClassSymbolTable symbols) {
+        if (isCurrent(generation)) {
+            resetBatches(linkOnAdd, symbols);
+        }
+    }
+
+    private void resetBatches(boolean linkOnAdd, ClassSymbolTable symbols) {
+        this.linkOnAdd = linkOnAdd;
+        this.symbols = symbols;
+        pendingBatch.clear();
+        indexByClassId = new int[symbols.size()];
+        Arrays.fill(indexByClassId, -1);
+        waitingFor = new IdList[symbols.size()];
+        lastBatchNanos = System.nanoTime();
+    }
+
+    public synchronized void addSquare(long generation, Square square) {
+        if (!isCurrent(generation)) {
+            return;
+        }
+        working.add(square);
+        workingAfferent.add(new IdList(square.getAfferentIds()));
         logger.debug("Added square: {}", square.getName());
+        pendingBatch.add(working.size() - 1);
+        long now = System.nanoTime();
+        if (pendingBatch.size() >= BATCH_SIZE || now - lastBatchNanos >= BATCH_INTERVAL_NANOS) {
+            // Posted under the lock, so a batch can never be queued behind the next load's clear
+            publishBatch(takeBatch(now));
+        }
     }
 
-    public void setReady() {
-        calculateAfferentDependencies();
-        ready = true;
-        loading = false;
-        logger.info("Blackboard ready with {} squares", squares.size());
-        firePropertyChange("blackboardReady", false, true);
-    }
-
-    private void calculateAfferentDependencies() {
-        logger.debug("Calculating afferent dependencies");
-        Map<String, Square> classMap = new HashMap<>();
-        for (Square square : squares) {
-            String className = square.getName().replace(".java", "");
-            classMap.put(className, square);
-        }
-
-        int dependencyCount = 0;
-        for (Square square : squares) {
-            String className = square.getName().replace(".java", "");
-            for (String dependency : square.getEfferentDependencies()) {
-                Square dependentSquare = classMap.get(dependency);
-                if (dependentSquare != null) {
-                    dependentSquare.addAfferentDependency(className);
-                    dependencyCount++;
+    private List<Square> takeBatch(long now) {
+        return takeBatch(now, null);
+    }
+
+    private List<Square> takeBatch(long now, DependencyGraph graph) {
+        if (linkOnAdd && graph == null) {
+            for (int index : pendingBatch) {
+                linkAfferentDependencies(index);
+            }
+        }
+        publishSnapshot(graph);
+        List<Square> batch = new ArrayList<>(pendingBatch.size());
+        for (int index : pendingBatch) {
+            batch.add(working.get(index));
+        }
+        pendingBatch.clear();
+        lastBatchNanos = now;
+        return batch;
+    }
+
+    /**
+     * Copies changed edge sets into fresh squares and swaps in the next version.
+     */
+    private void publishSnapshot(DependencyGraph graph) {
+        for (int i = afferentChanged.nextSetBit(0); i >= 0; i = afferentChanged.nextSetBit(i + 1)) {
+            working.set(i, working.get(i).withAfferentDependencies(workingAfferent.get(i).toSortedSet()));
+        }
+        afferentChanged.clear();
+        snapshot = new BlackboardSnapshot(++version, working.freeze(), graph);
+    }
+
+    private void addAfferent(int index, int classId) {
+        workingAfferent.get(index).add(classId);
+        afferentChanged.set(index);
+    }
+
+    /**
+     * Translates an ID of a square from an earlier load into this load's symbol table.
+     */
+    private int currentId(Square square, int classId) {
+        if (classId < 0 || square.getSymbols() == symbols) {
+            return classId;
+        }
+        return symbols.idOf(square.getSymbols().name(classId));
+    }
+
+    private void publishBatch(List<Square> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        logger.debug("Publishing batch of {} squares", batch.size());
+        firePropertyChange("squaresAdded", null, Collections.unmodifiableList(batch));
+    }
+
+    /**
+     * Adds the edges of a newly arrived square in both directions: to classes already
+     * published, and from earlier squares that were waiting for this class to arrive.
+     */
+    private void linkAfferentDependencies(int index) {
+        Square square = working.get(index);
+        int classId = square.getClassId();
+        if (classId < 0) {
+            return;
+        }
+        int shadowed = indexByClassId[classId];
+        indexByClassId[classId] = index;
+
+        // Same simple name in another folder: the last square takes the incoming edges, as in a full pass
+        if (shadowed >= 0) {
+            workingAfferent.get(index).addAll(workingAfferent.get(shadowed));
+            workingAfferent.get(shadowed).clear();
+            afferentChanged.set(index);
+            afferentChanged.set(shadowed);
+        }
+
+        IdList waiting = waitingFor[classId];
+        if (waiting != null) {
+            waitingFor[classId] = null;
+            workingAfferent.get(index).addAll(waiting);
+            afferentChanged.set(index);
+        }
+
+        for (int dependency : square.getEfferentIds()) {
+            int dependentIndex = indexByClassId[dependency];
+            if (dependentIndex >= 0) {
+                addAfferent(dependentIndex, classId);
+            } else {
+                if (waitingFor[dependency] == null) {
+                    waitingFor[dependency] = new IdList(new int[0]);
                 }
+                waitingFor[dependency].add(classId);
+            }
+        }
+    }
+
+    /**
+     * Marks the blackboard ready. The dependency graph of the complete load is the final word
+     * on afferent edges: squares whose incoming edges differ from it are replaced, which also
+     * settles edges that an incremental load reused from the previous run. The graph, cycle
+     * analysis and metric columns are built without holding the lock, so the EDT never waits
+     * on them; the generation is checked again before each result is published.
+     */
+    public void setReady(long generation) {
+        List<Square> squares;
+        synchronized (this) {
+            if (!isCurrent(generation)) {
+                return;
+            }
+            squares = working.freeze();
+        }
+
+        long start = System.nanoTime();
+        DependencyGraph graph = DependencyGraph.build(squares);
+        // Replacement squares are made here too; under the lock they are only swapped in
+        int[] settled = new int[squares.size()];
+        List<Square> settledSquares = new ArrayList<>();
+        for (int i = 0; i < squares.size(); i++) {
+            int[] afferent = graph.getAfferentClassIds(i);
+            if (!Arrays.equals(afferent, squares.get(i).getAfferentIds())) {
+                settled[settledSquares.size()] = i;
+                settledSquares.add(squares.get(i).withAfferentDependencies(afferent));
+            }
+        }
+        logger.debug("Dependency graph: {} nodes, {} edges in {} ms, {} squares updated",
+                graph.size(), graph.edgeCount(), (System.nanoTime() - start) / 1_000_000, settledSquares.size());
+
+        BlackboardSnapshot published;
+        synchronized (this) {
+            if (!isCurrent(generation)) {
+                return;
+            }
+            // Squares of a load only ever arrive before it is marked ready, so indexes still match
+            for (int k = 0; k < settledSquares.size(); k++) {
+                Square square = settledSquares.get(k);
+                working.set(settled[k], square);
+                workingAfferent.set(settled[k], new IdList(square.getAfferentIds()));
+            }
+            afferentChanged.clear();
+            publishBatch(takeBatch(System.nanoTime(), graph));
+            published = snapshot;
+        }
+
+        // Worked out here so the panels never wait for it on the EDT
+        start = System.nanoTime();
+        CycleAnalysis cycles = published.getCycleAnalysis();
+        logger.info("Dependency cycles: {} classes in {} cycles, {} packages in cycles, {} layers ({} ms)",
+                cycles.cyclicNodeCount(), cycles.cyclicComponentCount(), cycles.getCyclicFolders().size(),
+                cycles.layerCount(), (System.nanoTime() - start) / 1_000_000);
+        published.getMetricStore();
+
+        synchronized (this) {
+            if (!isCurrent(generation) || snapshot != published) {
+                return;
             }
+            ready = true;
+            loading = false;
+            logger.info("Blackboard ready with {} squares ({})", snapshot.size(), events.getStats());
+            firePropertyChange("blackboardReady", false, true);
         }
-        logger.debug("Calculated {} afferent dependencies", dependencyCount);
     }
 
     public void setLoading(boolean loading) {
@@ -97,6 +404,15 @@ public class Blackboard extends PropertyChangeSupport {
         firePropertyChange("blackboardLoading", !loading, loading);
     }
 
+    /**
+     * Sets the status message on behalf of a load, unless that load has been superseded.
+     */
+    public void setStatusMessage(long generation, String message) {
+        if (isCurrent(generation)) {
+            setStatusMessage(message);
+        }
+    }
+
     public void setStatusMessage(String message) {
         String oldMessage = this.statusMessage;
         this.statusMessage = message;
@@ -104,7 +420,20 @@ public class Blackboard extends PropertyChangeSupport {
         firePropertyChange("statusMessage", oldMessage, message);
     }
 
+    /**
+     * Selects one file. Its path is kept next to its name, as files in different folders may
+     * share a name.
+     */
+    public void setSelectedFile(Square square) {
+        setSelectedFileName(square.getName(), square.getPath());
+    }
+
     public void setSelectedFileName(String fileName) {
+        setSelectedFileName(fileName, "");
+    }
+
+    private void setSelectedFileName(String fileName, String filePath) {
+        setSelectedFilePath(filePath);
         String oldName = this.selectedFileName;
         this.selectedFileName = fileName;
         logger.debug("Selected file changed to: {}", fileName);
@@ -114,7 +443,15 @@ public class Blackboard extends PropertyChangeSupport {
         firePropertyChange("selectedFileName", oldName, fileName);
     }
 
+    private void setSelectedFilePath(String filePath) {
+        String oldPath = this.selectedFilePath;
+        this.selectedFilePath = filePath;
+        firePropertyChange("selectedFilePath", oldPath, filePath);
+    }
+
     public void setSelectedFolderPath(String folderPath) {
+        // The grid drops its selected file when the folder changes
+        setSelectedFilePath("");
         String oldPath = this.selectedFolderPath;
         this.selectedFolderPath = folderPath;
         logger.debug("Selected folder changed to: {}", folderPath);
@@ -135,55 +472,80 @@ public class Blackboard extends PropertyChangeSupport {
         return selectedFileName;
     }
 
+    /**
+     * Path of the file selected in a view, or "" if the selection was not made on one file.
+     */
+    public String getSelectedFilePath() {
+        return selectedFilePath;
+    }
+
     public String getSelectedFolderPath() {
         return selectedFolderPath;
     }
 
+    /**
+     * The current version of the squares. It never changes, so it can be read from any thread.
+     */
+    public BlackboardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
     public List<Square> getSquares() {
-        return squares;
+        return snapshot.getSquares();
     }
 
     public List<Square> getFilteredSquares() {
         if (selectedFolderPath == null || selectedFolderPath.isEmpty()) {
-            return new Vector<>();
-        }
-
-        List<Square> filtered = squares.stream()
-                .filter(square -> {
-                    String squarePath = square.getPath();
-                    if (squarePath.startsWith(selectedFolderPath)) {
-                        String remaining = squarePath.substring(selectedFolderPath.length());
-                        if (remaining.startsWith("/")) {
-                            remaining = remaining.substring(1);
-                        }
-                        return !remaining.contains("/");
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
+            return List.of();
+        }
 
+        // The tree selects files through the same path as folders
+        List<Square> filtered = snapshot.getSquaresAt(selectedFolderPath);
         logger.debug("Filtered {} squares for path: {}", filtered.size(), selectedFolderPath);
         return filtered;
     }
 
     public String getFolderFromPath(String filePath) {
-        int lastSlash = filePath.lastIndexOf("/");
-        if (lastSlash > 0) {
-            return filePath.substring(0, lastSlash);
-        }
-        return "";
+        return BlackboardSnapshot.folderOf(filePath);
     }
 
     public List<Square> getSquaresInSameFolder(String filePath) {
-        String folderPath = getFolderFromPath(filePath);
+        return snapshot.getSquaresInFolder(getFolderFromPath(filePath));
+    }
+
+    /**
+     * Martin metrics of every folder in the current snapshot, updated from what changed since
+     * the previous call.
+     */
+    public List<PackageMetrics.Entry> getPackageMetrics() {
+        return packageMetrics.update(snapshot);
+    }
+
+    public PackageMetrics.Entry getPackageMetrics(String folderPath) {
+        packageMetrics.update(snapshot);
+        return packageMetrics.get(folderPath);
+    }
 
-        return squares.stream()
-                .filter(square -> {
-                    String squarePath = square.getPath();
-                    String squareFolder = getFolderFromPath(squarePath);
-                    return squareFolder.equals(folderPath);
-                })
-                .collect(Collectors.toList());
+    public AnalysisState getAnalysisState(String url) {
+        AnalysisState state = analysisState;
+        return state != null && state.getUrl().equals(url) ? state : null;
+    }
+
+    public synchronized void setAnalysisState(long generation, AnalysisState analysisState) {
+        if (isCurrent(generation)) {
+            // Keep the published squares, which carry the incoming edges, for the next reload
+            for (Square square : snapshot.getSquares()) {
+                AnalysisState.Entry entry = analysisState.get(square.getPath());
+                if (entry != null) {
+                    analysisState.put(square.getPath(), entry.contentId(), entry.typeNames(), square);
+                }
+            }
+            this.analysisState = analysisState;
+        }
+    }
+
+    public void discardAnalysisState() {
+        analysisState = null;
     }
 
     public boolean isReady() {
@@ -194,15 +556,173 @@ public class Blackboard extends PropertyChangeSupport {
         return loading;
     }
 
+    /**
+     * Cancels any running load and clears the blackboard.
+     */
     public void clear() {
-        logger.info("Clearing blackboard - {} squares removed", squares.size());
-        squares.clear();
+        long current;
+        synchronized (this) {
+            cancelLoad();
+            cancelHistory();
+            metricHistory = null;
+            current = generation;
+        }
+        clear(current);
+    }
+
+    /**
+     * Clears the blackboard at the start of a load, unless that load has been superseded.
+     */
+    public void clear(long generation) {
+        synchronized (this) {
+            if (!isCurrent(generation)) {
+                return;
+            }
+            logger.info("Clearing blackboard - {} squares removed", working.size());
+            working.clear();
+            workingAfferent.clear();
+            afferentChanged.clear();
+            resetBatches(true, new ClassSymbolTable(List.of()));
+            snapshot = new BlackboardSnapshot(++version, List.of());
+        }
         ready = false;
         loading = false;
         statusMessage = "";
         selectedFileName = "";
+        selectedFilePath = "";
         selectedFolderPath = "";
         setStatusMessage("Cleared");
         firePropertyChange("blackboardCleared", false, true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Squares of the next version in chunks that published versions share. Freezing hands out an
+     * unmodifiable view at the cost of the chunk table, and a chunk is copied only when it is
+     * written after that, so publishing a batch does not copy the whole load.
+     */
+    private static final class SquareChunks {
+
+        private static final int SHIFT = 8;
+        private static final int CHUNK = 1 << SHIFT;
+
+        private Square[][] chunks = new Square[16][];
+        private boolean[] shared = new boolean[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        Square get(int index) {
+            Objects.checkIndex(index, size);
+            return chunks[index >>> SHIFT][index & (CHUNK - 1)];
+        }
+
+        void add(Square square) {
+            int chunk = size >>> SHIFT;
+            if (chunk == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunk * 2);
+                shared = Arrays.copyOf(shared, chunk * 2);
+            }
+            if (chunks[chunk] == null) {
+                chunks[chunk] = new Square[CHUNK];
+                shared[chunk] = false;
+            }
+            writable(chunk)[size & (CHUNK - 1)] = square;
+            size++;
+        }
+
+        void set(int index, Square square) {
+            Objects.checkIndex(index, size);
+            writable(index >>> SHIFT)[index & (CHUNK - 1)] = square;
+        }
+
+        void clear() {
+            chunks = new Square[16][];
+            shared = new boolean[16];
+            size = 0;
+        }
+
+        /**
+         * Unmodifiable view of the squares as they are now; later writes do not show through.
+         */
+        List<Square> freeze() {
+            int used = (size + CHUNK - 1) >>> SHIFT;
+            Arrays.fill(shared, 0, used, true);
+            return new Frozen(Arrays.copyOf(chunks, used), size);
+        }
+
+        private Square[] writable(int chunk) {
+            if (shared[chunk]) {
+                chunks[chunk] = chunks[chunk].clone();
+                shared[chunk] = false;
+            }
+            return chunks[chunk];
+        }
+
+        private static final class Frozen extends AbstractList<Square> implements RandomAccess {
+
+            private final Square[][] chunks;
+            private final int size;
+
+            Frozen(Square[][] chunks, int size) {
+                this.chunks = chunks;
+                this.size = size;
+            }
+
+            @Override
+            public Square get(int index) {
+                Objects.checkIndex(index, size);
+                return chunks[index >>> SHIFT][index & (CHUNK - 1)];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        }
+    }
+
+    /**
+     * Growable list of class IDs that becomes a sorted set when a version is published.
+     */
+    private static final class IdList {
+
+        private int[] ids;
+        private int size;
+
+        IdList(int[] initial) {
+            ids = Arrays.copyOf(initial, Math.max(4, initial.length));
+            size = initial.length;
+        }
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void addAll(IdList other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.ids[i]);
+            }
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toSortedSet() {
+            Arrays.sort(ids, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || ids[i] != ids[unique - 1]) {
+                    ids[unique++] = ids[i];
+                }
+            }
+            size = unique;
+            return Arrays.copyOf(ids, size);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the squares on the blackboard at one point in time. Every change
+ * publishes a new snapshot with a higher version, so readers can hold on to one without
+ * locking and compare versions to tell whether anything changed. Folder queries are
+ * answered from an index over the snapshot, so they cost the size of the result, and the
+ * dependency graph of the snapshot, its cycle analysis and its metric columns are shared by
+ * everything that reads it.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.3
+ */
+public final class BlackboardSnapshot {
+
+    public static final BlackboardSnapshot EMPTY = new BlackboardSnapshot(0, List.of());
+
+    private final long version;
+    private final List<Square> squares;
+    private volatile PathIndex pathIndex;
+    private volatile DependencyGraph dependencyGraph;
+    private volatile CycleAnalysis cycleAnalysis;
+    private volatile MetricStore metricStore;
+
+    public BlackboardSnapshot(long version, List<Square> squares) {
+        this(version, squares, null);
+    }
+
+    /**
+     * @param squares         taken over as they are, so publishing a version costs no copy; the
+     *                        list must be unmodifiable and never change afterwards
+     * @param dependencyGraph graph already built over the same squares, or null to build it on first use
+     */
+    public BlackboardSnapshot(long version, List<Square> squares, DependencyGraph dependencyGraph) {
+        this.version = version;
+        this.squares = squares;
+        this.dependencyGraph = dependencyGraph;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Square> getSquares() {
+        return squares;
+    }
+
+    public int size() {
+        return squares.size();
+    }
+
+    public boolean isEmpty() {
+        return squares.isEmpty();
+    }
+
+    /**
+     * Returns the squares directly inside a folder, in load order.
+     */
+    public List<Square> getSquaresInFolder(String folderPath) {
+        List<Square> inFolder = pathIndex().byFolder().get(folderPath);
+        return inFolder != null ? inFolder : List.of();
+    }
+
+    /**
+     * Returns the squares a tree selection stands for: the squares directly inside the folder
+     * at the path, or the one square of the file at it. The same path always gives the same
+     * list, so callers can tell by identity that nothing changed.
+     */
+    public List<Square> getSquaresAt(String path) {
+        PathIndex index = pathIndex();
+        List<Square> inFolder = index.byFolder().get(path);
+        if (inFolder != null) {
+            return inFolder;
+        }
+        List<Square> file = index.byFile().get(path);
+        return file != null ? file : List.of();
+    }
+
+    /**
+     * The dependency graph of this snapshot; node i is the i-th square of {@link #getSquares()}.
+     */
+    public DependencyGraph getDependencyGraph() {
+        DependencyGraph graph = dependencyGraph;
+        if (graph == null) {
+            graph = DependencyGraph.build(squares);
+            dependencyGraph = graph;
+        }
+        return graph;
+    }
+
+    /**
+     * Dependency cycles of this snapshot, worked out on first use.
+     */
+    public CycleAnalysis getCycleAnalysis() {
+        CycleAnalysis analysis = cycleAnalysis;
+        if (analysis == null) {
+            analysis = CycleAnalysis.analyze(getDependencyGraph());
+            cycleAnalysis = analysis;
+        }
+        return analysis;
+    }
+
+    /**
+     * Metric columns of this snapshot for top-N and range queries, built on first use.
+     */
+    public MetricStore getMetricStore() {
+        MetricStore store = metricStore;
+        if (store == null) {
+            store = MetricStore.build(squares);
+            metricStore = store;
+        }
+        return store;
+    }
+
+    public static String folderOf(String filePath) {
+        int lastSlash = filePath.lastIndexOf("/");
+        if (lastSlash > 0) {
+            return filePath.substring(0, lastSlash);
+        }
+        return "";
+    }
+
+    /**
+     * Squares by the folder they are directly in, and each square by its own path.
+     */
+    private record PathIndex(Map<String, List<Square>> byFolder, Map<String, List<Square>> byFile) {
+    }
+
+    // Built on first use rather than on publish, since a load publishes many versions nobody reads
+    private PathIndex pathIndex() {
+        PathIndex index = pathIndex;
+        if (index == null) {
+            Map<String, List<Square>> byFolder = new HashMap<>();
+            Map<String, List<Square>> byFile = new HashMap<>();
+            for (Square square : squares) {
+                byFolder.computeIfAbsent(folderOf(square.getPath()), k -> new ArrayList<>()).add(square);
+                byFile.put(square.getPath(), List.of(square));
+            }
+            byFolder.replaceAll((folder, inFolder) -> Collections.unmodifiableList(inFolder));
+            index = new PathIndex(byFolder, byFile);
+            pathIndex = index;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Table of every class name in the project, each mapped to a dense int ID. Lookups
+ * hash a character range in place, so identifiers can be resolved straight from a
+ * lexed buffer without allocating a String per identifier.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class ClassSymbolTable {
+
+    private final String[] names;
+    private final int[] slots;
+    private final int mask;
+
+    public ClassSymbolTable(Collection<String> classNames) {
+        // Sorted so IDs are stable for the same set of classes
+        this.names = new TreeSet<>(classNames).toArray(new String[0]);
+        int capacity = Integer.highestOneBit(Math.max(4, names.length * 2 - 1)) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+
+        for (int id = 0; id < names.length; id++) {
+            String name = names[id];
+            int slot = spread(name.hashCode()) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public boolean contains(String name) {
+        return idOf(name) >= 0;
+    }
+
+    /**
+     * Returns the ID of a class name, or -1 if it is not a project class.
+     */
+    public int idOf(String name) {
+        int slot = spread(name.hashCode()) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (names[entry - 1].equals(name)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the ID of the class named by chars[start, start + length), or -1.
+     */
+    public int lookup(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = spread(hash) & mask;
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (matches(names[entry - 1], chars, start, length)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean matches(String name, char[] chars, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -49,7 +49,7 @@ public class Controller implements ActionListener {
         } else {
             logger.warn("Attempted to load empty URL");
             Blackboard.getInstance().setStatusMessage("Error: No URL provided");
-            JOptionPane.showMessageDialog(null, "Please enter a valid GitHub folder URL.",
+            JOptionPane.showMessageDialog(null, "Please enter a valid GitHub folder URL or local path.",
                     "Invalid URL", JOptionPane.WARNING_MESSAGE);
         }
     }
@@ -60,7 +60,7 @@ public class Controller implements ActionListener {
             logger.info("Reloading URL: {}", url);
             Blackboard.getInstance().setStatusMessage("Reloading...");
             Blackboard.getInstance().setLoading(true);
-            Blackboard.getInstance().loadFromUrl(url);
+            Blackboard.getInstance().reloadFromUrl(url);
         } else {
             logger.warn("Attempted to reload with no URL");
             Blackboard.getInstance().setStatusMessage("Error: No URL to reload");
@@ -72,6 +72,7 @@ public class Controller implements ActionListener {
     private void clearAll() {
         logger.info("Clearing all data");
         Blackboard.getInstance().clear();
+        Blackboard.getInstance().discardAnalysisState();
         Blackboard.getInstance().setSelectedFileName("");
         urlField.setText("");
         Blackboard.getInstance().setStatusMessage("Ready");
@@ -0,0 +1,360 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Strongly connected components of a {@link DependencyGraph} and the DAG of components they
+ * condense into. Classes share a cycle when they sit in a component with more than one
+ * class; a class that only refers to itself is not counted as cyclic. The same analysis
+ * runs on the graph of folders to find packages that depend on each other.
+ *
+ * <p>Components are found with an iterative Tarjan, so deep dependency chains cannot
+ * overflow the stack. Components are numbered in the order Tarjan completes them, which
+ * puts every component after the ones it depends on; the layer of a component is its
+ * longest chain of dependencies and its depth its longest chain of dependents.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class CycleAnalysis {
+
+    private final DependencyGraph graph;
+    private final int[] componentOf;
+    private final int[] memberOffsets;
+    private final int[] members;
+    private final int[] dependencyOffsets;
+    private final int[] dependencies;
+    private final int[] layer;
+    private final int[] depth;
+    private final int layerCount;
+    private final int cyclicComponentCount;
+    private final int cyclicNodeCount;
+    private final Set<String> cyclicFolders;
+
+    private CycleAnalysis(DependencyGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        int[] forwardOffsets = graph.getForwardOffsets();
+        int[] forwardTargets = graph.getForwardTargets();
+
+        componentOf = new int[n];
+        int components = stronglyConnectedComponents(n, forwardOffsets, forwardTargets, componentOf);
+
+        // Members of each component, grouped by a counting sort
+        memberOffsets = new int[components + 1];
+        for (int node = 0; node < n; node++) {
+            memberOffsets[componentOf[node] + 1]++;
+        }
+        for (int c = 0; c < components; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        members = new int[n];
+        int[] cursor = Arrays.copyOf(memberOffsets, components);
+        for (int node = 0; node < n; node++) {
+            members[cursor[componentOf[node]]++] = node;
+        }
+
+        // Condensation: one edge per pair of components, deduplicated with a last-seen marker
+        int[] lastSeen = new int[components];
+        Arrays.fill(lastSeen, -1);
+        dependencyOffsets = new int[components + 1];
+        int[] targets = new int[Math.max(16, components)];
+        int edges = 0;
+        for (int c = 0; c < components; c++) {
+            for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                int node = members[m];
+                for (int e = forwardOffsets[node]; e < forwardOffsets[node + 1]; e++) {
+                    int target = componentOf[forwardTargets[e]];
+                    if (target != c && lastSeen[target] != c) {
+                        lastSeen[target] = c;
+                        if (edges == targets.length) {
+                            targets = Arrays.copyOf(targets, edges * 2);
+                        }
+                        targets[edges++] = target;
+                    }
+                }
+            }
+            Arrays.sort(targets, dependencyOffsets[c], edges);
+            dependencyOffsets[c + 1] = edges;
+        }
+        dependencies = Arrays.copyOf(targets, edges);
+
+        // Dependencies of a component always have lower numbers, so one pass each way suffices
+        layer = new int[components];
+        depth = new int[components];
+        int maxLayer = -1;
+        for (int c = 0; c < components; c++) {
+            for (int e = dependencyOffsets[c]; e < dependencyOffsets[c + 1]; e++) {
+                layer[c] = Math.max(layer[c], layer[dependencies[e]] + 1);
+            }
+            maxLayer = Math.max(maxLayer, layer[c]);
+        }
+        for (int c = components - 1; c >= 0; c--) {
+            for (int e = dependencyOffsets[c]; e < dependencyOffsets[c + 1]; e++) {
+                depth[dependencies[e]] = Math.max(depth[dependencies[e]], depth[c] + 1);
+            }
+        }
+        layerCount = maxLayer + 1;
+
+        int cyclicComponents = 0;
+        int cyclicNodes = 0;
+        for (int c = 0; c < components; c++) {
+            int size = memberOffsets[c + 1] - memberOffsets[c];
+            if (size > 1) {
+                cyclicComponents++;
+                cyclicNodes += size;
+            }
+        }
+        cyclicComponentCount = cyclicComponents;
+        cyclicNodeCount = cyclicNodes;
+        cyclicFolders = findCyclicFolders(graph);
+    }
+
+    public static CycleAnalysis analyze(DependencyGraph graph) {
+        return new CycleAnalysis(graph);
+    }
+
+    public DependencyGraph getGraph() {
+        return graph;
+    }
+
+    public int componentCount() {
+        return memberOffsets.length - 1;
+    }
+
+    public int getComponent(int node) {
+        return componentOf[node];
+    }
+
+    public int getComponentSize(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    /**
+     * Nodes of a component, in ascending order.
+     */
+    public int[] getMembers(int component) {
+        return Arrays.copyOfRange(members, memberOffsets[component], memberOffsets[component + 1]);
+    }
+
+    /**
+     * Components a component depends on directly, in ascending order.
+     */
+    public int[] getComponentDependencies(int component) {
+        return Arrays.copyOfRange(dependencies, dependencyOffsets[component], dependencyOffsets[component + 1]);
+    }
+
+    public boolean isCyclic(int component) {
+        return getComponentSize(component) > 1;
+    }
+
+    public boolean isInCycle(int node) {
+        return isCyclic(componentOf[node]);
+    }
+
+    /**
+     * Length of the longest dependency chain below a component; 0 if it depends on nothing.
+     */
+    public int getLayer(int component) {
+        return layer[component];
+    }
+
+    /**
+     * Length of the longest chain of dependents above a component; 0 if nothing depends on it.
+     */
+    public int getDepth(int component) {
+        return depth[component];
+    }
+
+    public int layerCount() {
+        return layerCount;
+    }
+
+    public int cyclicComponentCount() {
+        return cyclicComponentCount;
+    }
+
+    public int cyclicNodeCount() {
+        return cyclicNodeCount;
+    }
+
+    /**
+     * Returns the node of a square, or -1 if the square is not part of the graph.
+     */
+    public int nodeOf(Square square) {
+        int node = graph.nodeOf(square.getClassId());
+        // Published squares may be newer copies of the graph's, so they are matched by path
+        return node >= 0 && graph.getSquare(node).getPath().equals(square.getPath()) ? node : -1;
+    }
+
+    public boolean isInCycle(Square square) {
+        int node = nodeOf(square);
+        return node >= 0 && isInCycle(node);
+    }
+
+    /**
+     * Size of the cycle a square belongs to, or 0 if it is not in one.
+     */
+    public int getCycleSize(Square square) {
+        int node = nodeOf(square);
+        return node >= 0 && isInCycle(node) ? getComponentSize(componentOf[node]) : 0;
+    }
+
+    /**
+     * Component of the class a square refers to, or -1 if no square has that class.
+     */
+    public int componentOfClass(int classId) {
+        int node = graph.nodeOf(classId);
+        return node >= 0 ? componentOf[node] : -1;
+    }
+
+    /**
+     * Folders whose classes depend on each other across folder boundaries, sorted by path.
+     */
+    public Set<String> getCyclicFolders() {
+        return cyclicFolders;
+    }
+
+    public boolean isFolderInCycle(String folderPath) {
+        return cyclicFolders.contains(folderPath);
+    }
+
+    private static Set<String> findCyclicFolders(DependencyGraph graph) {
+        int n = graph.size();
+        Map<String, Integer> folderIds = new HashMap<>();
+        List<String> folders = new ArrayList<>();
+        int[] folderOf = new int[n];
+        for (int node = 0; node < n; node++) {
+            String folder = BlackboardSnapshot.folderOf(graph.getSquare(node).getPath());
+            Integer id = folderIds.get(folder);
+            if (id == null) {
+                id = folders.size();
+                folderIds.put(folder, id);
+                folders.add(folder);
+            }
+            folderOf[node] = id;
+        }
+
+        // Folder graph: nodes grouped by folder, then each folder's outgoing edges deduplicated
+        int folderCount = folders.size();
+        int[] forwardOffsets = graph.getForwardOffsets();
+        int[] forwardTargets = graph.getForwardTargets();
+        int[] byFolderOffsets = new int[folderCount + 1];
+        for (int node = 0; node < n; node++) {
+            byFolderOffsets[folderOf[node] + 1]++;
+        }
+        for (int f = 0; f < folderCount; f++) {
+            byFolderOffsets[f + 1] += byFolderOffsets[f];
+        }
+        int[] byFolder = new int[n];
+        int[] cursor = Arrays.copyOf(byFolderOffsets, folderCount);
+        for (int node = 0; node < n; node++) {
+            byFolder[cursor[folderOf[node]]++] = node;
+        }
+
+        int[] lastSeen = new int[folderCount];
+        Arrays.fill(lastSeen, -1);
+        int[] offsets = new int[folderCount + 1];
+        int[] targets = new int[Math.max(16, folderCount)];
+        int edges = 0;
+        for (int f = 0; f < folderCount; f++) {
+            for (int i = byFolderOffsets[f]; i < byFolderOffsets[f + 1]; i++) {
+                int node = byFolder[i];
+                for (int e = forwardOffsets[node]; e < forwardOffsets[node + 1]; e++) {
+                    int target = folderOf[forwardTargets[e]];
+                    if (target != f && lastSeen[target] != f) {
+                        lastSeen[target] = f;
+                        if (edges == targets.length) {
+                            targets = Arrays.copyOf(targets, edges * 2);
+                        }
+                        targets[edges++] = target;
+                    }
+                }
+            }
+            offsets[f + 1] = edges;
+        }
+
+        int[] componentOf = new int[folderCount];
+        int components = stronglyConnectedComponents(folderCount, offsets, targets, componentOf);
+        int[] sizes = new int[components];
+        for (int f = 0; f < folderCount; f++) {
+            sizes[componentOf[f]]++;
+        }
+        Set<String> cyclic = new TreeSet<>();
+        for (int f = 0; f < folderCount; f++) {
+            if (sizes[componentOf[f]] > 1) {
+                cyclic.add(folders.get(f));
+            }
+        }
+        return Collections.unmodifiableSet(cyclic);
+    }
+
+    /**
+     * Iterative Tarjan over a graph in compressed-sparse-row form. Fills in the component of
+     * every node, numbered in completion order, and returns the number of components.
+     */
+    static int stronglyConnectedComponents(int n, int[] offsets, int[] targets, int[] componentOf) {
+        int[] index = new int[n];
+        int[] low = new int[n];
+        int[] stack = new int[n];
+        int[] callNode = new int[n];
+        int[] callEdge = new int[n];
+        Arrays.fill(index, -1);
+        Arrays.fill(componentOf, -1);
+        int nextIndex = 0;
+        int stackSize = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) {
+                continue;
+            }
+            index[root] = low[root] = nextIndex++;
+            stack[stackSize++] = root;
+            callNode[0] = root;
+            callEdge[0] = offsets[root];
+            int calls = 1;
+
+            while (calls > 0) {
+                int v = callNode[calls - 1];
+                int edge = callEdge[calls - 1];
+                if (edge < offsets[v + 1]) {
+                    callEdge[calls - 1] = edge + 1;
+                    int w = targets[edge];
+                    if (index[w] < 0) {
+                        index[w] = low[w] = nextIndex++;
+                        stack[stackSize++] = w;
+                        callNode[calls] = w;
+                        callEdge[calls] = offsets[w];
+                        calls++;
+                    } else if (componentOf[w] < 0) {
+                        // Visited and still on the stack
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        w = stack[--stackSize];
+                        componentOf[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                calls--;
+                if (calls > 0) {
+                    int parent = callNode[calls - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+        return components;
+    }
+}
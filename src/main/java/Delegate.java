@@ -1,6 +1,9 @@
-import javiergs.tulip.GitHubHandler;
 import io.github.cdimascio.dotenv.Dotenv;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 import java.util.Set;
@@ -9,257 +12,412 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Delegate class to load Java files from a GitHub repository URL.
+ * Delegate class to load Java files from a GitHub repository URL or a local checkout.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.6
+ * @version 1.9
  */
 public class Delegate implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(Delegate.class);
+    private static final int DEFAULT_MAX_CONCURRENT_FETCHES = 16;
+    private static final Set<String> COLLECTION_TYPES = Set.of("List", "Vector", "Set", "ArrayList",
+            "HashSet", "Collection", "Map", "HashMap",
+            "LinkedList", "TreeSet", "TreeMap");
+    private static final Pattern FIELD_PATTERN = Pattern.compile(
+            "\\b(private|public|protected)\\s+" +
+                    "(?:static\\s+)?" +
+                    "(?:final\\s+)?" +
+                    "([A-Z]\\w+)" +
+                    "(?:<[^>]+>)?\\s+" +
+                    "\\w+\\s*" +
+                    "(?:=[^;]+)?;"
+    );
+    private static final Pattern STATIC_FIELD_PATTERN = Pattern.compile(
+            "\\b(private|public|protected)\\s+static\\s+(?:final\\s+)?(\\w+)\\s+\\w+\\s*[;=]"
+    );
+    private static final Pattern COLLECTION_FIELD_PATTERN = Pattern.compile(
+            "\\b(private|public|protected)\\s+" +
+                    "(?:static\\s+)?" +
+                    "(?:final\\s+)?" +
+                    "(List|Vector|Set|ArrayList|HashSet|Collection|Map|HashMap|LinkedList|TreeSet|TreeMap)" +
+                    "<\\s*([A-Z]\\w+)\\s*>"
+    );
     private String url;
-
-    public Delegate(String url) {
+    private int maxConcurrentFetches;
+    private boolean incremental;
+    private final long generation;
+    private volatile boolean cancelled;
+    private volatile AnalysisPipeline pipeline;
+
+    // State of the current run
+    private Set<String> allProjectClasses;
+    private ClassSymbolTable symbols;
+    private int javaFileCount;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger analyzed = new AtomicInteger();
+    private AnalysisState previous;
+    private AnalysisState next;
+    private Set<String> addedClasses;
+    private Set<String> removedClasses;
+
+    /**
+     * @param maxConcurrentFetches maximum number of file requests in flight; 0 reads
+     *                             MAX_CONCURRENT_FETCHES from .env or falls back to the default
+     * @param incremental          reuse the previous analysis of this URL for unchanged files
+     * @param generation           Blackboard generation this run writes to; its results are
+     *                             dropped once a newer load has started
+     */
+    public Delegate(String url, int maxConcurrentFetches, boolean incremental, long generation) {
         this.url = url;
-        logger.debug("Delegate created for URL: {}", url);
+        this.maxConcurrentFetches = maxConcurrentFetches;
+        this.incremental = incremental;
+        this.generation = generation;
+        logger.debug("Delegate created for URL: {} (incremental: {}, generation: {})", url, incremental, generation);
+    }
+
+    /**
+     * Analyzes one file outside of a load, against a given set of project classes.
+     */
+    public static Square analyze(String path, String content, JavaSource source, Set<String> projectClasses,
+                                 ClassSymbolTable symbols) {
+        Delegate delegate = new Delegate(path, 0, false, -1);
+        delegate.symbols = symbols;
+        delegate.allProjectClasses = projectClasses;
+        return delegate.analyzeFile(path, content, source, projectClasses);
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Asks the run to stop. No further files are read or analyzed, and nothing more is
+     * published to the blackboard.
+     */
+    public void cancel() {
+        cancelled = true;
+        AnalysisPipeline running = pipeline;
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    private void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Analysis cancelled");
+        }
     }
 
     @Override
     public void run() {
-        Blackboard.getInstance().clear();
-        Blackboard.getInstance().setStatusMessage("Fetching repository contents...");
+        Blackboard.getInstance().clear(generation);
+        Blackboard.getInstance().setStatusMessage(generation, "Fetching repository contents...");
         logger.info("Starting repository analysis for: {}", url);
 
-        try {
-            Dotenv dotenv = Dotenv.load();
-            String token = dotenv.get("GITHUB_TOKEN");
-
-            if (token == null || token.isEmpty()) {
-                logger.error("GitHub token not found in .env file");
-                throw new IllegalStateException("GitHub token not found in .env file");
-            }
-
-            logger.debug("GitHub token loaded successfully");
-            GitHubHandler gh = new GitHubHandler(token);
+        try (RepositorySource source = RepositorySource.open(url)) {
+            Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
 
-            Blackboard.getInstance().setStatusMessage("Listing files...");
-            List<String> allFromUrl = gh.listFilesRecursive(url);
+            checkCancelled();
+            Blackboard.getInstance().setStatusMessage(generation, "Listing files...");
+            List<String> allFromUrl = source.listFiles();
             logger.info("Found {} total files in repository", allFromUrl.size());
 
             // First pass: collect all class names
-            Blackboard.getInstance().setStatusMessage("Identifying Java files...");
-            Set<String> allProjectClasses = new HashSet<>();
-            int javaFileCount = 0;
+            Blackboard.getInstance().setStatusMessage(generation, "Identifying Java files...");
+            allProjectClasses = new HashSet<>();
+            List<String> javaFiles = new ArrayList<>();
             for (String path : allFromUrl) {
                 if (path.endsWith(".java")) {
                     String className = path.substring(path.lastIndexOf("/") + 1).replace(".java", "");
                     allProjectClasses.add(className);
-                    javaFileCount++;
+                    javaFiles.add(path);
                 }
             }
+            javaFileCount = javaFiles.size();
             logger.info("Found {} Java files", javaFileCount);
 
-            int fileCount = 0;
-
-            // Second pass: analyze each file
-            for (String path : allFromUrl) {
-                if (path.endsWith(".java")) {
-                    fileCount++;
-                    Blackboard.getInstance().setStatusMessage(
-                            String.format("Analyzing file %d/%d: %s", fileCount, javaFileCount,
-                                    path.substring(path.lastIndexOf("/") + 1)));
-
-                    logger.debug("Analyzing file {}/{}: {}", fileCount, javaFileCount, path);
-
-                    String content = gh.getFileContentFromUrl(convertToBlobUrl(url, path));
-                    int lines = countNonEmptyLines(content);
-                    int complexity = countComplexity(content);
-                    Square square = new Square(path, lines, complexity);
-
-                    square.setAbstract(isAbstractClass(content));
-                    square.setInterface(isInterface(content));
-
-                    // Extract extends and implements relationships
-                    String extendsClass = extractExtendsClass(content);
-                    if (extendsClass != null && allProjectClasses.contains(extendsClass)) {
-                        square.setExtendsClass(extendsClass);
-                        logger.debug("{} extends {}", path, extendsClass);
-                    }
-
-                    Set<String> implementsInterfaces = extractImplementsInterfaces(content);
-                    for (String iface : implementsInterfaces) {
-                        if (allProjectClasses.contains(iface)) {
-                            square.addImplementsInterface(iface);
-                            logger.debug("{} implements {}", path, iface);
-                        }
-                    }
-
-                    String currentClassName = path.substring(path.lastIndexOf("/") + 1).replace(".java", "");
-
-                    // Extract relationships
-                    Set<String> selfReferences = extractSelfReferences(content, currentClassName);
-                    for (String selfRef : selfReferences) {
-                        square.addAggregationDependency(selfRef);
-                    }
-
-                    Set<String> aggregationTypes = extractAggregationTypes(content, allProjectClasses);
-                    for (String aggrType : aggregationTypes) {
-                        square.addAggregationDependency(aggrType);
-                    }
+            // Incremental mode: files whose content ID matches the previous run keep their square
+            previous = incremental ? Blackboard.getInstance().getAnalysisState(url) : null;
+
+            // Same classes as last time: keep the symbol table so reused squares need no remapping
+            symbols = previous != null && previous.getClassNames().equals(allProjectClasses)
+                    ? previous.getSymbols() : new ClassSymbolTable(allProjectClasses);
+            next = new AnalysisState(url, allProjectClasses, symbols);
+            addedClasses = previous != null
+                    ? AnalysisState.difference(allProjectClasses, previous.getClassNames()) : Set.of();
+            removedClasses = previous != null
+                    ? AnalysisState.difference(previous.getClassNames(), allProjectClasses) : Set.of();
+            if (previous != null) {
+                logger.info("Incremental reload: {} classes added, {} removed since last run",
+                        addedClasses.size(), removedClasses.size());
+            }
 
-                    Set<String> fieldTypes = extractFieldTypes(content, allProjectClasses);
-                    for (String fieldType : fieldTypes) {
-                        if (!aggregationTypes.contains(fieldType) && !selfReferences.contains(fieldType)) {
-                            square.addCompositionDependency(fieldType);
-                        }
-                    }
+            checkCancelled();
+            Blackboard.getInstance().beginLoad(generation, previous == null, symbols);
 
-                    Set<String> dependencies = extractDependencies(content, path, allProjectClasses);
-                    for (String dep : dependencies) {
-                        square.addEfferentDependency(dep);
+            // Fetch, analyze and publish run as separate stages with bounded queues in between
+            pipeline = new AnalysisPipeline(source, javaFiles,
+                    resolveMaxConcurrentFetches(dotenv), this::reuseUnchanged, this::analyzeOrReuse);
+            if (cancelled) {
+                pipeline.cancel();
+            }
+            pipeline.run(square -> Blackboard.getInstance().addSquare(generation, square));
+            checkCancelled();
+            int fileCount = javaFileCount;
+
+            Blackboard.getInstance().setStatusMessage(generation, "Calculating metrics...");
+            if (previous == null) {
+                logger.info("Analysis complete - {} files processed", fileCount);
+            } else {
+                int reanalyzed = analyzed.get();
+                int removed = 0;
+                for (AnalysisState.Entry old : previous.getEntries()) {
+                    if (!next.contains(old.square().getPath())) {
+                        removed++;
                     }
-
-                    logger.debug("File {} - Lines: {}, Complexity: {}, Dependencies: {}",
-                            currentClassName, lines, complexity, dependencies.size());
-
-                    Blackboard.getInstance().addSquare(square);
                 }
+                logger.info("Incremental analysis complete - {} files re-analyzed, {} reused, {} removed",
+                        reanalyzed, fileCount - reanalyzed, removed);
             }
-
-            logger.info("Analysis complete - {} files processed", fileCount);
-            Blackboard.getInstance().setStatusMessage("Calculating metrics...");
-            Blackboard.getInstance().setReady();
-            Blackboard.getInstance().setStatusMessage(fileCount + " files analyzed successfully");
+            Blackboard.getInstance().setReady(generation);
+            Blackboard.getInstance().setAnalysisState(generation, next);
+            Blackboard.getInstance().setStatusMessage(generation, fileCount + " files analyzed successfully");
             Thread.sleep(1000);
 
+        } catch (CancellationException | InterruptedException e) {
+            logger.info("Analysis of {} cancelled (generation {})", url, generation);
         } catch (IllegalStateException e) {
             logger.error("Configuration error: {}", e.getMessage());
-            Blackboard.getInstance().setStatusMessage("Error: " + e.getMessage());
+            Blackboard.getInstance().setStatusMessage(generation, "Error: " + e.getMessage());
         } catch (Exception e) {
+            if (cancelled) {
+                // Interrupting a read surfaces as an I/O error
+                logger.info("Analysis of {} cancelled (generation {})", url, generation);
+                return;
+            }
             logger.error("Error during repository analysis", e);
-            Blackboard.getInstance().setStatusMessage("Error: " + e.getMessage());
+            Blackboard.getInstance().setStatusMessage(generation, "Error: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private int countNonEmptyLines(String content) {
-        return (int) content.lines()
-                .map(String::trim)
-                .filter(line -> !line.isEmpty())
-                .count();
+    /**
+     * Returns the previous square of a file whose blob SHA is unchanged, so it is never read.
+     */
+    private Square reuseUnchanged(String path, String sha) {
+        AnalysisState.Entry prior = previous != null ? previous.get(path) : null;
+        if (prior != null && sha != null && sha.equals(prior.contentId()) && !prior.mayReference(addedClasses)) {
+            Square square = reuse(prior.square());
+            next.put(path, sha, prior.typeNames(), square);
+            reportProgress(path);
+            return square;
+        }
+        return null;
     }
 
-    private int countComplexity(String content) {
-        int complexity = 0;
-        String cleaned = removeCommentsAndStrings(content);
+    private Square analyzeOrReuse(String path, String content, String sha) {
+        AnalysisState.Entry prior = previous != null ? previous.get(path) : null;
+        String contentId = sha != null ? sha : AnalysisState.contentId(content);
+        Square square;
 
-        Pattern ifPattern = Pattern.compile("\\bif\\s*\\(");
-        Matcher ifMatcher = ifPattern.matcher(cleaned);
-        while (ifMatcher.find()) complexity++;
+        // A newly added class may now resolve in an unchanged file that uses its name
+        if (prior != null && contentId.equals(prior.contentId()) && !prior.mayReference(addedClasses)) {
+            square = reuse(prior.square());
+            next.put(path, contentId, prior.typeNames(), square);
+        } else {
+            JavaSource source = JavaSource.lex(content);
+            square = analyzeFile(path, content, source, allProjectClasses);
+            next.put(path, contentId, source.typeNameHashes(), square);
+            analyzed.incrementAndGet();
+        }
+        reportProgress(path);
+        return square;
+    }
 
-        Pattern switchPattern = Pattern.compile("\\bswitch\\s*\\(");
-        Matcher switchMatcher = switchPattern.matcher(cleaned);
-        while (switchMatcher.find()) complexity++;
+    private void reportProgress(String path) {
+        int done = completed.incrementAndGet();
+        Blackboard.getInstance().setStatusMessage(generation,
+                String.format("Analyzing file %d/%d: %s", done, javaFileCount,
+                        path.substring(path.lastIndexOf("/") + 1)));
+    }
 
-        Pattern forPattern = Pattern.compile("\\bfor\\s*\\(");
-        Matcher forMatcher = forPattern.matcher(cleaned);
-        while (forMatcher.find()) complexity++;
+    /**
+     * @param source the content lexed once; comments and literals are stripped and every
+     *               extractor reads the same tokens
+     */
+    private Square analyzeFile(String path, String content, JavaSource source, Set<String> allProjectClasses) {
+        logger.debug("Analyzing file: {}", path);
+
+        int lines = countNonEmptyLines(content);
+        int complexity = countComplexity(source);
+        Square square = new Square(path, lines, complexity, symbols);
+
+        square.setAbstract(isAbstractClass(source));
+        square.setInterface(isInterface(source));
+
+        // Extract extends and implements relationships
+        String extendsClass = extractExtendsClass(source);
+        if (extendsClass != null && allProjectClasses.contains(extendsClass)) {
+            square.setExtendsClass(extendsClass);
+            logger.debug("{} extends {}", path, extendsClass);
+        }
 
-        Pattern whilePattern = Pattern.compile("\\bwhile\\s*\\(");
-        Matcher whileMatcher = whilePattern.matcher(cleaned);
-        while (whileMatcher.find()) complexity++;
+        Set<String> implementsInterfaces = extractImplementsInterfaces(source);
+        for (String iface : implementsInterfaces) {
+            if (allProjectClasses.contains(iface)) {
+                square.addImplementsInterface(iface);
+                logger.debug("{} implements {}", path, iface);
+            }
+        }
 
-        return complexity;
+        String currentClassName = path.substring(path.lastIndexOf("/") + 1).replace(".java", "");
+
+        // Extract relationships
+        Set<String> selfReferences = extractSelfReferences(source, currentClassName);
+        for (String selfRef : selfReferences) {
+            square.addAggregationDependency(selfRef);
+        }
+
+        Set<String> aggregationTypes = extractAggregationTypes(source, allProjectClasses);
+        for (String aggrType : aggregationTypes) {
+            square.addAggregationDependency(aggrType);
+        }
+
+        Set<String> fieldTypes = extractFieldTypes(source, allProjectClasses);
+        for (String fieldType : fieldTypes) {
+            if (!aggregationTypes.contains(fieldType) && !selfReferences.contains(fieldType)) {
+                square.addCompositionDependency(fieldType);
+            }
+        }
+
+        BitSet dependencies = extractDependencies(source, path, symbols);
+        for (int id = dependencies.nextSetBit(0); id >= 0; id = dependencies.nextSetBit(id + 1)) {
+            square.addEfferentDependency(id);
+        }
+
+        logger.debug("File {} - Lines: {}, Complexity: {}, Dependencies: {}",
+                currentClassName, lines, complexity, dependencies.cardinality());
+        return square;
+    }
+
+    private Square reuse(Square square) {
+        // References to deleted classes disappear when the square moves to this run's symbol table
+        return square.withSymbols(symbols);
+    }
+
+    private int resolveMaxConcurrentFetches(Dotenv dotenv) {
+        if (maxConcurrentFetches > 0) {
+            return maxConcurrentFetches;
+        }
+        String configured = dotenv.get("MAX_CONCURRENT_FETCHES");
+        if (configured != null && !configured.isEmpty()) {
+            try {
+                int value = Integer.parseInt(configured.trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring invalid MAX_CONCURRENT_FETCHES value: {}", configured);
+            }
+        }
+        return DEFAULT_MAX_CONCURRENT_FETCHES;
     }
 
-    private String removeCommentsAndStrings(String content) {
-        content = content.replaceAll("//.*", "");
-        content = content.replaceAll("/\\*.*?\\*/", "");
-        content = content.replaceAll("\".*?\"", "");
-        return content;
+    private int countNonEmptyLines(String content) {
+        return (int) content.lines()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .count();
     }
 
-    private boolean isAbstractClass(String content) {
-        String cleaned = removeCommentsAndStrings(content);
-        Pattern pattern = Pattern.compile("\\b(public|private|protected)?\\s*abstract\\s+class\\s+\\w+");
-        Matcher matcher = pattern.matcher(cleaned);
-        return matcher.find();
+    private int countComplexity(JavaSource source) {
+        int complexity = 0;
+        for (int i = 0; i < source.tokenCount() - 1; i++) {
+            if ((source.is(i, "if") || source.is(i, "switch") || source.is(i, "for") || source.is(i, "while"))
+                    && source.is(i + 1, '(')) {
+                complexity++;
+            }
+        }
+        return complexity;
     }
 
-    private boolean isInterface(String content) {
-        String cleaned = removeCommentsAndStrings(content);
-        Pattern pattern = Pattern.compile("\\b(public|private|protected)?\\s*interface\\s+\\w+");
-        Matcher matcher = pattern.matcher(cleaned);
+    private boolean isAbstractClass(JavaSource source) {
+        for (int i = 0; i < source.tokenCount() - 2; i++) {
+            if (source.is(i, "abstract") && source.is(i + 1, "class") && source.isIdentifier(i + 2)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        if (matcher.find()) {
-            int start = matcher.start();
-            String before = cleaned.substring(Math.max(0, start - 20), start);
-            if (before.contains("implements")) {
-                return false;
+    private boolean isInterface(JavaSource source) {
+        for (int i = 0; i < source.tokenCount() - 1; i++) {
+            if (source.is(i, "interface") && source.isIdentifier(i + 1)) {
+                for (int back = Math.max(0, i - 3); back < i; back++) {
+                    if (source.is(back, "implements")) {
+                        return false;
+                    }
+                }
+                return true;
             }
-            return true;
         }
         return false;
     }
 
-    private String extractExtendsClass(String content) {
-        String cleaned = removeCommentsAndStrings(content);
-        Pattern pattern = Pattern.compile("\\bextends\\s+([A-Z]\\w+)");
-        Matcher matcher = pattern.matcher(cleaned);
-        if (matcher.find()) {
-            return matcher.group(1);
+    private String extractExtendsClass(JavaSource source) {
+        for (int i = 0; i < source.tokenCount() - 1; i++) {
+            // A bound such as <T extends java.lang.Number> may come first; keep looking past it
+            if (source.is(i, "extends") && source.isUpperIdentifier(i + 1) && source.tokenLength(i + 1) > 1) {
+                return source.tokenText(i + 1);
+            }
         }
         return null;
     }
 
-    private Set<String> extractImplementsInterfaces(String content) {
+    private Set<String> extractImplementsInterfaces(JavaSource source) {
         Set<String> interfaces = new HashSet<>();
-        String cleaned = removeCommentsAndStrings(content);
-        Pattern pattern = Pattern.compile("\\bimplements\\s+([A-Z][\\w,\\s]+)");
-        Matcher matcher = pattern.matcher(cleaned);
-
-        while (matcher.find()) {
-            String interfaceList = matcher.group(1);
-            for (String iface : interfaceList.split(",")) {
-                String trimmed = iface.trim();
-                if (trimmed.contains("<")) {
-                    trimmed = trimmed.substring(0, trimmed.indexOf("<"));
-                }
-                if (trimmed.matches("[A-Z]\\w+")) {
-                    interfaces.add(trimmed);
+        for (int i = 0; i < source.tokenCount(); i++) {
+            if (!source.is(i, "implements")) {
+                continue;
+            }
+            // Top-level names of the comma separated list, skipping generic arguments
+            int depth = 0;
+            boolean expectName = true;
+            for (int j = i + 1; j < source.tokenCount() && !source.is(j, '{'); j++) {
+                if (source.is(j, '<')) {
+                    depth++;
+                } else if (source.is(j, '>')) {
+                    depth--;
+                } else if (depth == 0 && source.is(j, ',')) {
+                    expectName = true;
+                } else if (depth == 0 && expectName && source.isIdentifier(j)) {
+                    // Qualified names resolve to their last segment
+                    int last = j;
+                    while (source.is(last + 1, '.') && source.isIdentifier(last + 2)) {
+                        last += 2;
+                    }
+                    if (source.isUpperIdentifier(last) && source.tokenLength(last) > 1) {
+                        interfaces.add(source.tokenText(last));
+                    }
+                    j = last;
+                    expectName = false;
                 }
             }
         }
         return interfaces;
     }
 
-    private Set<String> extractFieldTypes(String content, Set<String> allProjectClasses) {
+    private Set<String> extractFieldTypes(JavaSource source, Set<String> allProjectClasses) {
         Set<String> fieldTypes = new HashSet<>();
-        String cleaned = removeCommentsAndStrings(content);
-
-        Set<String> collectionTypes = Set.of("List", "Vector", "Set", "ArrayList",
-                "HashSet", "Collection", "Map", "HashMap",
-                "LinkedList", "TreeSet", "TreeMap");
-
-        String withoutMethodBodies = removeMethodBodies(cleaned);
-
-        Pattern fieldPattern = Pattern.compile(
-                "\\b(private|public|protected)\\s+" +
-                        "(?:static\\s+)?" +
-                        "(?:final\\s+)?" +
-                        "([A-Z]\\w+)" +
-                        "(?:<[^>]+>)?\\s+" +
-                        "\\w+\\s*" +
-                        "(?:=[^;]+)?;"
-        );
-        Matcher fieldMatcher = fieldPattern.matcher(withoutMethodBodies);
+        Matcher fieldMatcher = FIELD_PATTERN.matcher(source.classBody());
 
         while (fieldMatcher.find()) {
             String fullMatch = fieldMatcher.group(0);
             String type = fieldMatcher.group(2);
 
-            if (collectionTypes.contains(type)) {
+            if (COLLECTION_TYPES.contains(type)) {
                 continue;
             }
 
@@ -275,69 +433,27 @@ public class Delegate implements Runnable {
         return fieldTypes;
     }
 
-    private String removeMethodBodies(String content) {
-        StringBuilder result = new StringBuilder();
-        int braceDepth = 0;
-        boolean inClassBody = false;
-
-        for (int i = 0; i < content.length(); i++) {
-            char c = content.charAt(i);
-
-            if (c == '{') {
-                if (braceDepth == 0) {
-                    inClassBody = true;
-                    result.append(c);
-                }
-                braceDepth++;
-            } else if (c == '}') {
-                braceDepth--;
-                if (braceDepth == 0 && inClassBody) {
-                    result.append(c);
-                }
-            } else if (braceDepth <= 1) {
-                result.append(c);
-            }
-        }
-
-        return result.toString();
-    }
-
-    private Set<String> extractSelfReferences(String content, String currentClassName) {
+    private Set<String> extractSelfReferences(JavaSource source, String currentClassName) {
         Set<String> selfRefs = new HashSet<>();
-        String cleaned = removeCommentsAndStrings(content);
 
         // Look for static fields of the same type (Singleton pattern)
         // Must be a field declaration, not a local variable
-        String withoutMethodBodies = removeMethodBodies(cleaned);
-
-        Pattern selfRefPattern = Pattern.compile(
-                "\\b(private|public|protected)\\s+static\\s+(?:final\\s+)?" +
-                        currentClassName + "\\s+\\w+\\s*[;=]"
-        );
-        Matcher matcher = selfRefPattern.matcher(withoutMethodBodies);
-
-        if (matcher.find()) {
-            selfRefs.add(currentClassName);
+        Matcher matcher = STATIC_FIELD_PATTERN.matcher(source.classBody());
+        while (matcher.find()) {
+            if (matcher.group(2).equals(currentClassName)) {
+                selfRefs.add(currentClassName);
+                break;
+            }
         }
 
         return selfRefs;
     }
 
-    private Set<String> extractAggregationTypes(String content, Set<String> allProjectClasses) {
+    private Set<String> extractAggregationTypes(JavaSource source, Set<String> allProjectClasses) {
         Set<String> aggregationTypes = new HashSet<>();
-        String cleaned = removeCommentsAndStrings(content);
-
-        String withoutMethodBodies = removeMethodBodies(cleaned);
 
         // Look for collection types with generics: List<Type>, Vector<Type>, Set<Type>, etc.
-        Pattern collectionPattern = Pattern.compile(
-                "\\b(private|public|protected)\\s+" +
-                        "(?:static\\s+)?" +
-                        "(?:final\\s+)?" +
-                        "(List|Vector|Set|ArrayList|HashSet|Collection|Map|HashMap|LinkedList|TreeSet|TreeMap)" +
-                        "<\\s*([A-Z]\\w+)\\s*>"
-        );
-        Matcher collectionMatcher = collectionPattern.matcher(withoutMethodBodies);
+        Matcher collectionMatcher = COLLECTION_FIELD_PATTERN.matcher(source.classBody());
 
         while (collectionMatcher.find()) {
             String type = collectionMatcher.group(3);
@@ -349,65 +465,55 @@ public class Delegate implements Runnable {
         return aggregationTypes;
     }
 
-    private Set<String> extractDependencies(String content, String currentPath, Set<String> allProjectClasses) {
-        Set<String> dependencies = new HashSet<>();
+    /**
+     * Walks the identifiers once and resolves every capitalized one used as a type
+     * (instantiation, static call, declaration, parameter or return type) against the
+     * project symbol table.
+     */
+    private BitSet extractDependencies(JavaSource source, String currentPath, ClassSymbolTable symbols) {
+        BitSet dependencies = new BitSet();
         String currentClassName = currentPath.substring(currentPath.lastIndexOf("/") + 1).replace(".java", "");
-        String cleanedContent = removeCommentsAndStrings(content);
-        Set<String> potentialClasses = new HashSet<>();
-
-        Pattern newPattern = Pattern.compile("\\bnew\\s+([A-Z]\\w+)\\s*[<(]");
-        Matcher newMatcher = newPattern.matcher(cleanedContent);
-        while (newMatcher.find()) {
-            potentialClasses.add(newMatcher.group(1));
-        }
-
-        Pattern staticPattern = Pattern.compile("\\b([A-Z]\\w+)\\.\\w+\\s*\\(");
-        Matcher staticMatcher = staticPattern.matcher(cleanedContent);
-        while (staticMatcher.find()) {
-            potentialClasses.add(staticMatcher.group(1));
-        }
-
-        // Pattern for: ClassName varName (variable declarations)
-        Pattern declPattern = Pattern.compile("\\b([A-Z]\\w+)\\s+[a-z]\\w*\\s*[;=),]");
-        Matcher declMatcher = declPattern.matcher(cleanedContent);
-        while (declMatcher.find()) {
-            potentialClasses.add(declMatcher.group(1));
-        }
-
-        // Pattern for: method parameters - Type paramName
-        Pattern paramPattern = Pattern.compile("\\(([^)]*?)\\)");
-        Matcher paramMatcher = paramPattern.matcher(cleanedContent);
-        while (paramMatcher.find()) {
-            String params = paramMatcher.group(1);
-            Pattern typePattern = Pattern.compile("\\b([A-Z]\\w+)\\s+\\w+");
-            Matcher typeMatcher = typePattern.matcher(params);
-            while (typeMatcher.find()) {
-                potentialClasses.add(typeMatcher.group(1));
-            }
-        }
-
-        // Pattern for: return types - "ClassName methodName("
-        Pattern returnPattern = Pattern.compile("\\b([A-Z]\\w+)\\s+\\w+\\s*\\(");
-        Matcher returnMatcher = returnPattern.matcher(cleanedContent);
-        while (returnMatcher.find()) {
-            potentialClasses.add(returnMatcher.group(1));
-        }
-
-        for (String className : potentialClasses) {
-            if (allProjectClasses.contains(className) && !className.equals(currentClassName)) {
-                dependencies.add(className);
+        int currentId = symbols.idOf(currentClassName);
+        int parenDepth = 0;
+
+        for (int i = 0; i < source.tokenCount(); i++) {
+            if (source.is(i, '(')) {
+                parenDepth++;
+            } else if (source.is(i, ')')) {
+                parenDepth = Math.max(0, parenDepth - 1);
+            } else if (source.isUpperIdentifier(i)) {
+                int id = source.symbolId(i, symbols);
+                if (id >= 0 && id != currentId && isTypeReference(source, i, parenDepth)) {
+                    dependencies.set(id);
+                }
             }
         }
 
         return dependencies;
     }
 
-    private String convertToBlobUrl(String url, String path) {
-        if (url.contains("/tree/")) {
-            String[] parts = url.split("/tree/");
-            return parts[0] + "/blob/" + parts[1].split("/")[0] + "/" + path;
-        } else {
-            return url.replace("/tree/", "/blob/") + "/" + path;
+    private boolean isTypeReference(JavaSource source, int i, int parenDepth) {
+        // new ClassName( or new ClassName<
+        if (source.is(i - 1, "new") && (source.is(i + 1, '(') || source.is(i + 1, '<'))) {
+            return true;
+        }
+        // ClassName.method(
+        if (source.is(i + 1, '.') && source.isIdentifier(i + 2) && source.is(i + 3, '(')) {
+            return true;
         }
+        if (source.isIdentifier(i + 1)) {
+            // Return types: ClassName methodName(
+            if (source.is(i + 2, '(')) {
+                return true;
+            }
+            // Method parameters: Type paramName
+            if (parenDepth > 0) {
+                return true;
+            }
+            // Variable declarations: ClassName varName followed by ; = ) or ,
+            return source.isLowerIdentifier(i + 1)
+                    && (source.is(i + 2, ';') || source.is(i + 2, '=') || source.is(i + 2, ')') || source.is(i + 2, ','));
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,252 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Class dependency graph over a list of squares in compressed-sparse-row form. Node i is
+ * the i-th square; the forward rows hold the squares each one depends on and the reverse
+ * rows the squares depending on it. Both are built with parallel streams on the fork/join
+ * pool and never change afterwards.
+ *
+ * <p>A class name that appears in several folders resolves to the last square with that
+ * name, as the name-keyed lookups did before.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public final class DependencyGraph {
+
+    public static final DependencyGraph EMPTY = build(List.of());
+
+    private final Square[] nodes;
+    private final int[] nodeOfClass;
+    private final int[] forwardOffsets;
+    private final int[] forwardTargets;
+    private final int[] reverseOffsets;
+    private final int[] reverseSources;
+    private final int[] afferentCoupling;
+
+    private DependencyGraph(Square[] nodes, int[] nodeOfClass, int[] forwardOffsets, int[] forwardTargets,
+                            int[] reverseOffsets, int[] reverseSources, int[] afferentCoupling) {
+        this.nodes = nodes;
+        this.nodeOfClass = nodeOfClass;
+        this.forwardOffsets = forwardOffsets;
+        this.forwardTargets = forwardTargets;
+        this.reverseOffsets = reverseOffsets;
+        this.reverseSources = reverseSources;
+        this.afferentCoupling = afferentCoupling;
+    }
+
+    /**
+     * Builds the graph of the given squares, which must all come from the same analysis.
+     */
+    public static DependencyGraph build(List<Square> squares) {
+        Square[] nodes = squares.toArray(new Square[0]);
+        int n = nodes.length;
+        ClassSymbolTable symbols = n > 0 ? nodes[0].getSymbols() : null;
+        int[] nodeOfClass = new int[symbols != null ? symbols.size() : 0];
+        Arrays.fill(nodeOfClass, -1);
+        for (int i = 0; i < n; i++) {
+            if (nodes[i].getSymbols() != symbols) {
+                throw new IllegalArgumentException("Squares come from different analyses: " + nodes[i].getPath());
+            }
+            if (nodes[i].getClassId() >= 0) {
+                nodeOfClass[nodes[i].getClassId()] = i;
+            }
+        }
+
+        // Forward rows: count, prefix sum, fill; every row is written by one task
+        int[] forwardOffsets = new int[n + 1];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int count = 0;
+            for (int classId : nodes[i].getEfferentIds()) {
+                if (nodeOfClass[classId] >= 0) {
+                    count++;
+                }
+            }
+            forwardOffsets[i + 1] = count;
+        });
+        Arrays.parallelPrefix(forwardOffsets, Integer::sum);
+
+        int[] forwardTargets = new int[forwardOffsets[n]];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int position = forwardOffsets[i];
+            for (int classId : nodes[i].getEfferentIds()) {
+                int target = nodeOfClass[classId];
+                if (target >= 0) {
+                    forwardTargets[position++] = target;
+                }
+            }
+        });
+
+        // Reverse rows: each task owns a run of sources holding about the same number of edges and
+        // counts their targets into its own histogram. A prefix sum over targets, then over the
+        // tasks within each target, gives every task its own write cursors, so the scatter needs
+        // no atomics and tasks taken in source order leave every row sorted
+        int edges = forwardTargets.length;
+        int tasks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), edges / 4096));
+        int[] taskStart = new int[tasks + 1];
+        for (int task = 1; task < tasks; task++) {
+            taskStart[task] = firstSourceAtEdge(forwardOffsets, (int) ((long) edges * task / tasks));
+        }
+        taskStart[tasks] = n;
+        int[][] cursors = new int[tasks][];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int[] counts = new int[n];
+            for (int edge = forwardOffsets[taskStart[task]]; edge < forwardOffsets[taskStart[task + 1]]; edge++) {
+                counts[forwardTargets[edge]]++;
+            }
+            cursors[task] = counts;
+        });
+
+        int[] reverseOffsets = new int[n + 1];
+        IntStream.range(0, n).parallel().forEach(target -> {
+            int count = 0;
+            for (int[] counts : cursors) {
+                count += counts[target];
+            }
+            reverseOffsets[target + 1] = count;
+        });
+        Arrays.parallelPrefix(reverseOffsets, Integer::sum);
+        IntStream.range(0, n).parallel().forEach(target -> {
+            int position = reverseOffsets[target];
+            for (int[] counts : cursors) {
+                int count = counts[target];
+                counts[target] = position;
+                position += count;
+            }
+        });
+
+        int[] reverseSources = new int[edges];
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            int[] cursor = cursors[task];
+            for (int i = taskStart[task]; i < taskStart[task + 1]; i++) {
+                for (int edge = forwardOffsets[i]; edge < forwardOffsets[i + 1]; edge++) {
+                    reverseSources[cursor[forwardTargets[edge]]++] = i;
+                }
+            }
+        });
+
+        // Ca counts dependent classes, so two dependents sharing a class name count once; rows
+        // only need a closer look when some class name is used by more than one square
+        int[] afferentCoupling = new int[n];
+        boolean sharedNames = hasSharedNames(nodes, nodeOfClass);
+        IntStream.range(0, n).parallel().forEach(i -> {
+            afferentCoupling[i] = sharedNames
+                    ? distinctClassIds(nodes, reverseSources, reverseOffsets[i], reverseOffsets[i + 1]).length
+                    : reverseOffsets[i + 1] - reverseOffsets[i];
+        });
+
+        return new DependencyGraph(nodes, nodeOfClass, forwardOffsets, forwardTargets,
+                reverseOffsets, reverseSources, afferentCoupling);
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return forwardTargets.length;
+    }
+
+    public Square getSquare(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Returns the node of a class ID, or -1 if no square in the graph has that class.
+     */
+    public int nodeOf(int classId) {
+        return classId >= 0 && classId < nodeOfClass.length ? nodeOfClass[classId] : -1;
+    }
+
+    public int getEfferentCoupling(int node) {
+        return forwardOffsets[node + 1] - forwardOffsets[node];
+    }
+
+    public int getAfferentCoupling(int node) {
+        return afferentCoupling[node];
+    }
+
+    public int[] getDependencies(int node) {
+        return Arrays.copyOfRange(forwardTargets, forwardOffsets[node], forwardOffsets[node + 1]);
+    }
+
+    public int[] getDependents(int node) {
+        return Arrays.copyOfRange(reverseSources, reverseOffsets[node], reverseOffsets[node + 1]);
+    }
+
+    // Raw rows for graph algorithms: row i is targets[offsets[i]] to targets[offsets[i + 1] - 1].
+    // The arrays are shared; callers must not modify them
+
+    public int[] getForwardOffsets() {
+        return forwardOffsets;
+    }
+
+    public int[] getForwardTargets() {
+        return forwardTargets;
+    }
+
+    public int[] getReverseOffsets() {
+        return reverseOffsets;
+    }
+
+    public int[] getReverseSources() {
+        return reverseSources;
+    }
+
+    /**
+     * Sorted class IDs of the squares depending on a node, in the form Square keeps its afferent edges.
+     */
+    public int[] getAfferentClassIds(int node) {
+        return distinctClassIds(nodes, reverseSources, reverseOffsets[node], reverseOffsets[node + 1]);
+    }
+
+    /**
+     * First source whose row starts at or after the given edge.
+     */
+    private static int firstSourceAtEdge(int[] offsets, int edge) {
+        int low = 0;
+        int high = offsets.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] < edge) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean hasSharedNames(Square[] nodes, int[] nodeOfClass) {
+        for (int i = 0; i < nodes.length; i++) {
+            int classId = nodes[i].getClassId();
+            if (classId >= 0 && nodeOfClass[classId] != i) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] distinctClassIds(Square[] nodes, int[] sources, int from, int to) {
+        int[] classIds = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            int classId = nodes[sources[i]].getClassId();
+            if (classId >= 0) {
+                classIds[count++] = classId;
+            }
+        }
+        Arrays.sort(classIds, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || classIds[i] != classIds[unique - 1]) {
+                classIds[unique++] = classIds[i];
+            }
+        }
+        return unique == classIds.length ? classIds : Arrays.copyOf(classIds, unique);
+    }
+}
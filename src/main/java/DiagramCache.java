@@ -0,0 +1,145 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two-level cache of rendered PlantUML diagrams, keyed by a hash of the diagram source.
+ * Decoded images are kept in memory up to a total pixel size, and the PNG output is kept in
+ * an {@link LruFileStore} under the user's home directory so unchanged diagrams survive a
+ * restart. Both levels are evicted least-recently-used first, and images are decoded outside
+ * the lock so diagram workers do not wait on each other.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public class DiagramCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DiagramCache.class);
+    private static final long DEFAULT_MAX_MEMORY_BYTES = 64L * 1024 * 1024;
+    private static final long DEFAULT_MAX_DISK_BYTES = 128L * 1024 * 1024;
+    private static DiagramCache instance;
+
+    private final long maxMemoryBytes;
+    private final LinkedHashMap<String, BufferedImage> images;
+    private final LruFileStore files;
+    private long memoryBytes = 0;
+
+    public DiagramCache(Path root, long maxMemoryBytes, long maxDiskBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.images = new LinkedHashMap<>(16, 0.75f, true);
+        this.files = new LruFileStore(root, maxDiskBytes, 1);
+        logger.info("Diagram cache at {} holds {} diagrams ({} bytes, cap {} bytes)",
+                root, files.size(), files.getTotalBytes(), maxDiskBytes);
+    }
+
+    public static synchronized DiagramCache getInstance() {
+        if (instance == null) {
+            Path root = Paths.get(System.getProperty("user.home"), ".githubviz", "cache", "diagrams");
+            instance = new DiagramCache(root, DEFAULT_MAX_MEMORY_BYTES, DEFAULT_MAX_DISK_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Cache key of a diagram: the SHA-256 of its PlantUML source.
+     */
+    public static String keyOf(String plantUml) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest(plantUml.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Returns the diagram with the given key from memory, or decodes it from disk, or returns
+     * null if it has not been rendered yet.
+     */
+    public BufferedImage get(String key) {
+        synchronized (this) {
+            BufferedImage image = images.get(key);
+            if (image != null) {
+                return image;
+            }
+        }
+        Path file = entryPath(key);
+        if (!files.contains(file)) {
+            return null;
+        }
+        try {
+            BufferedImage image = decode(files.read(file));
+            remember(key, image);
+            logger.debug("Loaded diagram {} from disk", key);
+            return image;
+        } catch (IOException e) {
+            logger.warn("Dropping unreadable diagram {}: {}", file, e.getMessage());
+            files.remove(file);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a freshly rendered diagram: the PNG bytes on disk and the decoded image in memory.
+     * Returns the decoded image.
+     */
+    public BufferedImage put(String key, byte[] png) throws IOException {
+        BufferedImage image = decode(png);
+        remember(key, image);
+        Path file = entryPath(key);
+        try {
+            files.write(file, png);
+        } catch (IOException e) {
+            logger.warn("Could not write diagram {}: {}", file, e.getMessage());
+        }
+        return image;
+    }
+
+    private static BufferedImage decode(byte[] png) throws IOException {
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            throw new IOException("not a readable PNG image");
+        }
+        return image;
+    }
+
+    private synchronized void remember(String key, BufferedImage image) {
+        long size = sizeOf(image);
+        if (size > maxMemoryBytes) {
+            return;
+        }
+        BufferedImage previous = images.put(key, image);
+        memoryBytes += size - (previous == null ? 0 : sizeOf(previous));
+        Iterator<BufferedImage> it = images.values().iterator();
+        while (memoryBytes > maxMemoryBytes && it.hasNext()) {
+            memoryBytes -= sizeOf(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Memory held by a decoded image, taken as four bytes a pixel whatever its type.
+     */
+    private static long sizeOf(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    private Path entryPath(String key) {
+        return files.getRoot().resolve(key + ".png");
+    }
+}
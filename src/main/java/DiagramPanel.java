@@ -2,11 +2,9 @@ import net.sourceforge.plantuml.FileFormat;
 import net.sourceforge.plantuml.FileFormatOption;
 import net.sourceforge.plantuml.SourceStringReader;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
@@ -17,13 +15,14 @@ import java.util.List;
  * Updates automatically via Blackboard.
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.4
+ * @version 1.6
  *
  */
 public class DiagramPanel extends JPanel implements PropertyChangeListener {
 
     private final JLabel imageLabel = new JLabel();
     private boolean ready = false;
+    private int renderRequest = 0;
 
     public DiagramPanel() {
         setLayout(new BorderLayout());
@@ -57,6 +56,7 @@ public class DiagramPanel extends JPanel implements PropertyChangeListener {
     }
 
     private void renderDiagram() {
+        BlackboardSnapshot snapshot = Blackboard.getInstance().getSnapshot();
         List<Square> squares = Blackboard.getInstance().getFilteredSquares();
 
         if (squares.isEmpty()) {
@@ -69,22 +69,32 @@ public class DiagramPanel extends JPanel implements PropertyChangeListener {
         imageLabel.setText("Generating diagram...");
         imageLabel.setIcon(null);
 
+        // A cached diagram can come back before an older one still rendering; only the latest is shown
+        int request = ++renderRequest;
         new SwingWorker<BufferedImage, Void>() {
             @Override
             protected BufferedImage doInBackground() throws Exception {
-                String plantUmlCode = PlantUmlGenerator.generateDiagram(squares);
+                String plantUmlCode = PlantUmlGenerator.generateDiagram(squares, snapshot.getCycleAnalysis());
+                String key = DiagramCache.keyOf(plantUmlCode);
+                DiagramCache cache = DiagramCache.getInstance();
+                BufferedImage cached = cache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
 
                 SourceStringReader reader = new SourceStringReader(plantUmlCode);
                 ByteArrayOutputStream os = new ByteArrayOutputStream();
                 reader.outputImage(os, new FileFormatOption(FileFormat.PNG));
                 os.close();
 
-                byte[] imageBytes = os.toByteArray();
-                return ImageIO.read(new ByteArrayInputStream(imageBytes));
+                return cache.put(key, os.toByteArray());
             }
 
             @Override
             protected void done() {
+                if (request != renderRequest) {
+                    return;
+                }
                 try {
                     BufferedImage image = get();
                     ImageIcon icon = new ImageIcon(image);
@@ -0,0 +1,185 @@
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers property change events to listeners on the EDT. Events posted on the EDT are
+ * delivered right away; events posted from other threads are queued and delivered together
+ * once per frame. High-frequency events are coalesced while they wait: a latest-only event
+ * keeps just its newest value and is rate limited, and consecutive list events are merged.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public class EdtEventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EdtEventDispatcher.class);
+    private static final int FRAME_MILLIS = 16;
+
+    private final Consumer<PropertyChangeEvent> listeners;
+    private final Map<String, Long> minIntervalNanos = new HashMap<>();
+    private final Set<String> merged = new HashSet<>();
+    private final Map<String, Set<String>> discards = new HashMap<>();
+    private final Timer frameTimer;
+
+    // Guarded by this
+    private final List<PropertyChangeEvent> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private long postedCount;
+    private long deliveredCount;
+
+    // EDT only
+    private final Map<String, Long> lastDeliveredNanos = new HashMap<>();
+
+    /**
+     * @param listeners delivers one event to the listeners; always called on the EDT
+     */
+    public EdtEventDispatcher(Consumer<PropertyChangeEvent> listeners) {
+        this.listeners = listeners;
+        this.frameTimer = new Timer(FRAME_MILLIS, e -> flush());
+        this.frameTimer.setRepeats(false);
+    }
+
+    /**
+     * Keeps only the newest pending value of an event and delivers it at most the given
+     * number of times per second.
+     */
+    public synchronized EdtEventDispatcher latestOnly(String propertyName, int maxPerSecond) {
+        minIntervalNanos.put(propertyName, 1_000_000_000L / maxPerSecond);
+        return this;
+    }
+
+    /**
+     * Merges consecutive pending events whose new values are lists into one event.
+     */
+    public synchronized EdtEventDispatcher merged(String propertyName) {
+        merged.add(propertyName);
+        return this;
+    }
+
+    /**
+     * Drops pending events of the given names whenever this event is posted.
+     */
+    public synchronized EdtEventDispatcher discards(String propertyName, String... dropped) {
+        discards.computeIfAbsent(propertyName, k -> new HashSet<>()).addAll(List.of(dropped));
+        return this;
+    }
+
+    public void post(PropertyChangeEvent event) {
+        String name = event.getPropertyName();
+        if (SwingUtilities.isEventDispatchThread()) {
+            synchronized (this) {
+                postedCount++;
+                applyDiscards(name);
+                if (minIntervalNanos.containsKey(name)) {
+                    // A value set on the EDT is newer than anything still waiting
+                    pending.removeIf(waiting -> waiting.getPropertyName().equals(name));
+                }
+            }
+            deliver(event);
+            return;
+        }
+
+        synchronized (this) {
+            postedCount++;
+            applyDiscards(name);
+            enqueue(event);
+            if (!flushScheduled) {
+                flushScheduled = true;
+                SwingUtilities.invokeLater(frameTimer::restart);
+            }
+        }
+    }
+
+    private void applyDiscards(String name) {
+        Set<String> dropped = discards.get(name);
+        if (dropped != null) {
+            pending.removeIf(waiting -> dropped.contains(waiting.getPropertyName()));
+        }
+    }
+
+    private void enqueue(PropertyChangeEvent event) {
+        String name = event.getPropertyName();
+        if (minIntervalNanos.containsKey(name)) {
+            for (int i = 0; i < pending.size(); i++) {
+                PropertyChangeEvent waiting = pending.get(i);
+                if (waiting.getPropertyName().equals(name)) {
+                    pending.set(i, new PropertyChangeEvent(event.getSource(), name,
+                            waiting.getOldValue(), event.getNewValue()));
+                    return;
+                }
+            }
+        } else if (merged.contains(name) && !pending.isEmpty()) {
+            PropertyChangeEvent last = pending.get(pending.size() - 1);
+            if (last.getPropertyName().equals(name)
+                    && last.getNewValue() instanceof List<?> before && event.getNewValue() instanceof List<?> after) {
+                List<Object> combined = new ArrayList<>(before.size() + after.size());
+                combined.addAll(before);
+                combined.addAll(after);
+                pending.set(pending.size() - 1, new PropertyChangeEvent(event.getSource(), name,
+                        last.getOldValue(), Collections.unmodifiableList(combined)));
+                return;
+            }
+        }
+        pending.add(event);
+    }
+
+    // Runs on the EDT once per frame while events are waiting
+    private void flush() {
+        long now = System.nanoTime();
+        List<PropertyChangeEvent> due = new ArrayList<>();
+        boolean reschedule;
+        synchronized (this) {
+            List<PropertyChangeEvent> held = new ArrayList<>();
+            for (PropertyChangeEvent event : pending) {
+                Long interval = minIntervalNanos.get(event.getPropertyName());
+                Long last = lastDeliveredNanos.get(event.getPropertyName());
+                if (interval != null && last != null && now - last < interval) {
+                    held.add(event);
+                } else {
+                    due.add(event);
+                }
+            }
+            pending.clear();
+            pending.addAll(held);
+            flushScheduled = !held.isEmpty();
+            reschedule = flushScheduled;
+        }
+        for (PropertyChangeEvent event : due) {
+            deliver(event);
+        }
+        if (reschedule) {
+            frameTimer.restart();
+        }
+    }
+
+    private void deliver(PropertyChangeEvent event) {
+        lastDeliveredNanos.put(event.getPropertyName(), System.nanoTime());
+        synchronized (this) {
+            deliveredCount++;
+        }
+        try {
+            listeners.accept(event);
+        } catch (RuntimeException e) {
+            logger.error("Listener failed on {}", event.getPropertyName(), e);
+        }
+    }
+
+    /**
+     * Number of events posted and delivered so far; the difference is what coalescing saved.
+     */
+    public synchronized String getStats() {
+        return String.format("%d events posted, %d delivered", postedCount, deliveredCount);
+    }
+}
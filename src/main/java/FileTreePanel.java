@@ -8,16 +8,21 @@ import javax.swing.event.TreeSelectionListener;
 import java.awt.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * FileTreePanel class to display repository structure as a tree.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.4
+ * @version 1.5
  */
 public class FileTreePanel extends JPanel implements PropertyChangeListener {
 
@@ -25,6 +30,8 @@ public class FileTreePanel extends JPanel implements PropertyChangeListener {
     private DefaultTreeModel treeModel;
     private DefaultMutableTreeNode root;
     private Map<String, DefaultMutableTreeNode> pathToNodeMap;
+    private Map<String, DefaultMutableTreeNode> folderNodes;
+    private Set<String> filePaths;
 
     public FileTreePanel() {
         setLayout(new BorderLayout());
@@ -36,8 +43,14 @@ public class FileTreePanel extends JPanel implements PropertyChangeListener {
         tree.setRootVisible(true);
         tree.setShowsRootHandles(true);
         tree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
+        // With a fixed row height the large-model layout does not re-measure rows on every insert
+        tree.setRowHeight(Math.max(tree.getRowHeight(), tree.getFontMetrics(tree.getFont()).getHeight() + 2));
+        tree.setLargeModel(true);
 
         pathToNodeMap = new HashMap<>();
+        folderNodes = new HashMap<>();
+        folderNodes.put("", root);
+        filePaths = new HashSet<>();
 
         tree.addTreeSelectionListener(new TreeSelectionListener() {
             @Override
@@ -57,24 +70,33 @@ public class FileTreePanel extends JPanel implements PropertyChangeListener {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void propertyChange(PropertyChangeEvent evt) {
-        if (evt.getPropertyName().equals("blackboardReady")) {
-            buildTree();
+        if (evt.getPropertyName().equals("squaresAdded")) {
+            addSquares((List<Square>) evt.getNewValue());
+        } else if (evt.getPropertyName().equals("blackboardReady")) {
+            addSquares(new ArrayList<>(Blackboard.getInstance().getSquares()));
         } else if (evt.getPropertyName().equals("blackboardCleared")) {
             clearTree();
         }
     }
 
-    private void buildTree() {
-        root.removeAllChildren();
-        pathToNodeMap.clear();
-        List<Square> squares = Blackboard.getInstance().getSquares();
-
-        Map<String, DefaultMutableTreeNode> folderNodes = new HashMap<>();
-        folderNodes.put("", root);
+    /**
+     * Inserts the files of a batch into the tree; files already present are skipped, so
+     * batches and the final ready event can overlap. Only the inserted nodes are reported to
+     * the model and only new folders are expanded, so the rest of the tree, the selection and
+     * the scroll position are left alone.
+     */
+    private void addSquares(List<Square> squares) {
+        // Child counts of folders that already existed, before this batch appended to them
+        Map<DefaultMutableTreeNode, Integer> grownFolders = new LinkedHashMap<>();
+        Set<DefaultMutableTreeNode> newFolders = new LinkedHashSet<>();
 
         for (Square square : squares) {
             String path = square.getPath();
+            if (!filePaths.add(path)) {
+                continue;
+            }
             String[] parts = path.split("/");
 
             String currentPath = "";
@@ -85,9 +107,10 @@ public class FileTreePanel extends JPanel implements PropertyChangeListener {
 
                 if (!folderNodes.containsKey(currentPath)) {
                     DefaultMutableTreeNode folderNode = new DefaultMutableTreeNode(parts[i]);
-                    parentNode.add(folderNode);
+                    append(parentNode, folderNode, grownFolders, newFolders);
                     folderNodes.put(currentPath, folderNode);
                     pathToNodeMap.put(currentPath, folderNode);
+                    newFolders.add(folderNode);
                     parentNode = folderNode;
                 } else {
                     parentNode = folderNodes.get(currentPath);
@@ -96,29 +119,51 @@ public class FileTreePanel extends JPanel implements PropertyChangeListener {
 
             String fileName = parts[parts.length - 1];
             DefaultMutableTreeNode fileNode = new DefaultMutableTreeNode(fileName);
-            parentNode.add(fileNode);
+            append(parentNode, fileNode, grownFolders, newFolders);
         }
 
-        treeModel.reload();
-        expandAllNodes();
+        // Nodes below a new folder come with it, so only existing folders are notified
+        for (Map.Entry<DefaultMutableTreeNode, Integer> grown : grownFolders.entrySet()) {
+            DefaultMutableTreeNode folder = grown.getKey();
+            int[] indices = new int[folder.getChildCount() - grown.getValue()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = grown.getValue() + i;
+            }
+            treeModel.nodesWereInserted(folder, indices);
+        }
 
-        tree.clearSelection();
+        // New folders open like the rest of the tree did, unless their parent was collapsed
+        if (!newFolders.isEmpty()) {
+            tree.expandPath(new TreePath(root));
+        }
+        for (DefaultMutableTreeNode folder : newFolders) {
+            TreePath parentPath = new TreePath(((DefaultMutableTreeNode) folder.getParent()).getPath());
+            if (tree.isExpanded(parentPath)) {
+                tree.expandPath(new TreePath(folder.getPath()));
+            }
+        }
+    }
+
+    private static void append(DefaultMutableTreeNode parent, DefaultMutableTreeNode child,
+                               Map<DefaultMutableTreeNode, Integer> grownFolders,
+                               Set<DefaultMutableTreeNode> newFolders) {
+        if (!newFolders.contains(parent)) {
+            grownFolders.putIfAbsent(parent, parent.getChildCount());
+        }
+        parent.add(child);
     }
 
     private void clearTree() {
         root.removeAllChildren();
         root.setUserObject("Repository");
         pathToNodeMap.clear();
+        folderNodes.clear();
+        folderNodes.put("", root);
+        filePaths.clear();
         treeModel.reload();
         Blackboard.getInstance().setSelectedFolderPath("");
     }
 
-    private void expandAllNodes() {
-        for (int i = 0; i < tree.getRowCount(); i++) {
-            tree.expandRow(i);
-        }
-    }
-
     private String getNodePath(DefaultMutableTreeNode node) {
         if (node == root) {
             return "";
@@ -0,0 +1,182 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the commits of a local git checkout with the git command line: the first-parent
+ * history of HEAD, the blob SHA of every file at a commit, and blob contents through one
+ * long-running {@code git cat-file --batch}. Paths are relative to the folder that was
+ * opened, like the paths of a {@link RepositorySource}.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public class GitHistory implements Closeable {
+
+    /**
+     * One commit; the time is in seconds since the epoch.
+     */
+    public record Commit(String id, long time, String subject) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHistory.class);
+    private static final long COMMAND_TIMEOUT_SECONDS = 120;
+
+    private final Path folder;
+    private final String prefix;
+    private Process catFile;
+    private OutputStream catFileInput;
+    private InputStream catFileOutput;
+
+    private GitHistory(Path folder, String prefix) {
+        this.folder = folder;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Opens the git checkout containing a local folder.
+     *
+     * @throws IOException if the location is not a folder inside a git checkout, or git is not installed
+     */
+    public static GitHistory open(String location) throws IOException {
+        Path folder;
+        try {
+            folder = location.startsWith("file:") ? Paths.get(java.net.URI.create(location)) : Paths.get(location);
+        } catch (RuntimeException e) {
+            throw new IOException("History needs a local git checkout: " + location);
+        }
+        if (!Files.isDirectory(folder)) {
+            throw new IOException("History needs a local git checkout; clone the repository first: " + location);
+        }
+        folder = folder.toAbsolutePath().normalize();
+        String prefix = new String(run(folder, "git", "rev-parse", "--show-prefix"), StandardCharsets.UTF_8).trim();
+        logger.info("Reading history of {} (prefix '{}')", folder, prefix);
+        return new GitHistory(folder, prefix);
+    }
+
+    /**
+     * The most recent commits on the first-parent line of HEAD, oldest first.
+     */
+    public List<Commit> listCommits(int maxCount) throws IOException {
+        String log = new String(run(folder, "git", "log", "--first-parent", "-n", String.valueOf(maxCount),
+                "--format=%H%x09%ct%x09%s", "HEAD"), StandardCharsets.UTF_8);
+        List<Commit> commits = new ArrayList<>();
+        for (String line : log.split("\n")) {
+            String[] fields = line.split("\t", 3);
+            if (fields.length >= 2) {
+                commits.add(new Commit(fields[0], Long.parseLong(fields[1]), fields.length > 2 ? fields[2] : ""));
+            }
+        }
+        Collections.reverse(commits);
+        return commits;
+    }
+
+    /**
+     * Path to blob SHA of every file under the opened folder at a commit.
+     */
+    public Map<String, String> listBlobs(String commitId) throws IOException {
+        byte[] listing = run(folder, "git", "ls-tree", "-r", "-z", "--full-tree", commitId);
+        Map<String, String> blobs = new LinkedHashMap<>();
+        int start = 0;
+        for (int i = 0; i < listing.length; i++) {
+            if (listing[i] != 0) {
+                continue;
+            }
+            // <mode> SP <type> SP <sha> TAB <path>
+            String entry = new String(listing, start, i - start, StandardCharsets.UTF_8);
+            start = i + 1;
+            int tab = entry.indexOf('\t');
+            String[] header = entry.substring(0, tab).split(" ");
+            String path = entry.substring(tab + 1);
+            if (header[1].equals("blob") && path.startsWith(prefix)) {
+                blobs.put(path.substring(prefix.length()), header[2]);
+            }
+        }
+        return blobs;
+    }
+
+    public synchronized String readBlob(String sha) throws IOException {
+        if (catFile == null) {
+            catFile = new ProcessBuilder("git", "cat-file", "--batch").directory(folder.toFile()).start();
+            catFileInput = catFile.getOutputStream();
+            catFileOutput = new BufferedInputStream(catFile.getInputStream());
+        }
+        catFileInput.write((sha + "\n").getBytes(StandardCharsets.US_ASCII));
+        catFileInput.flush();
+
+        // <sha> SP <type> SP <size> LF <content> LF
+        String header = readLine(catFileOutput);
+        String[] fields = header.split(" ");
+        if (fields.length < 3) {
+            throw new IOException("Blob not found: " + sha);
+        }
+        byte[] content = catFileOutput.readNBytes(Integer.parseInt(fields[2]));
+        catFileOutput.read();
+        return new String(content, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (catFile != null) {
+            catFile.destroy();
+            catFile = null;
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                throw new IOException("git cat-file stopped unexpectedly");
+            }
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] run(Path folder, String... command) throws IOException {
+        Process process = new ProcessBuilder(command).directory(folder.toFile()).redirectErrorStream(false).start();
+        try {
+            // Drain stderr on the side so a chatty git cannot block on a full pipe
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            Thread drain = Thread.ofVirtual().start(() -> {
+                try {
+                    process.getErrorStream().transferTo(errors);
+                } catch (IOException ignored) {
+                    // The process ended
+                }
+            });
+            byte[] output = process.getInputStream().readAllBytes();
+            if (!process.waitFor(COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                throw new IOException("Timed out: " + String.join(" ", command));
+            }
+            drain.join();
+            if (process.exitValue() != 0) {
+                throw new IOException(String.join(" ", command) + " failed: " + errors.toString(StandardCharsets.UTF_8).trim());
+            }
+            return output;
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted: " + String.join(" ", command), e);
+        }
+    }
+}
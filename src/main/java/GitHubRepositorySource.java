@@ -0,0 +1,95 @@
+import javiergs.tulip.GitHubHandler;
+import io.github.cdimascio.dotenv.Dotenv;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Repository source backed by the TULIP GitHub handler, with file contents served from
+ * the on-disk SourceCache whenever the blob SHA is already known.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public class GitHubRepositorySource implements RepositorySource {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHubRepositorySource.class);
+    private final String url;
+    private final String token;
+    private final GitHubHandler gh;
+    private final SourceCache cache;
+    private String repository;
+    private String ref;
+    private Map<String, String> blobShas = Map.of();
+
+    public GitHubRepositorySource(String url, String token) {
+        this.url = url;
+        this.token = token;
+        this.gh = new GitHubHandler(token);
+        this.cache = SourceCache.getInstance();
+    }
+
+    public static GitHubRepositorySource fromUrl(String url) {
+        Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+        String token = dotenv.get("GITHUB_TOKEN");
+
+        if (token == null || token.isEmpty()) {
+            logger.error("GitHub token not found in .env file");
+            throw new IllegalStateException("GitHub token not found in .env file");
+        }
+        logger.debug("GitHub token loaded successfully");
+        return new GitHubRepositorySource(url, token);
+    }
+
+    @Override
+    public List<String> listFiles() throws IOException {
+        List<String> files = gh.listFilesRecursive(url);
+
+        // Blob SHAs let unchanged files be served from the on-disk cache without a content request
+        cache.resetStats();
+        GitHubTree tree = GitHubTree.fromUrl(url, token);
+        repository = tree != null ? tree.getRepository() : url;
+        ref = tree != null ? tree.getRef() : null;
+        blobShas = tree != null ? tree.fetchBlobShas(token) : Map.of();
+        return files;
+    }
+
+    @Override
+    public String readFile(String path) throws IOException {
+        String sha = blobShas.get(path);
+        if (sha != null) {
+            String cached = cache.get(repository, sha);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        String content = gh.getFileContentFromUrl(convertToBlobUrl(url, path));
+        if (sha != null) {
+            cache.put(repository, sha, content);
+        }
+        return content;
+    }
+
+    @Override
+    public String getContentId(String path) {
+        return blobShas.get(path);
+    }
+
+    @Override
+    public void close() {
+        cache.logStats();
+    }
+
+    private String convertToBlobUrl(String url, String path) {
+        if (url.contains("/tree/")) {
+            // The resolved ref, which may contain slashes, so contents match the cached blob SHAs
+            String[] parts = url.split("/tree/");
+            return parts[0] + "/blob/" + (ref != null ? ref : parts[1].split("/")[0]) + "/" + path;
+        } else {
+            return url.replace("/tree/", "/blob/") + "/" + path;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves a GitHub folder URL to its repository, ref and the blob SHA of every file,
+ * using a single call to the git trees API.
+ *
+ * <p>Branch and tag names may contain slashes, so in a URL like {@code /tree/feature/x/src}
+ * the ref cannot be told from the folder by the URL alone. Such a path is resolved against
+ * the repository's branches, then tags, taking the longest one that the path starts with
+ * segment by segment. If the refs cannot be listed, the first segment is used as before and
+ * the tree request for a slashed ref fails, leaving the files uncached. Commit SHAs and
+ * single-segment refs need no lookup.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public class GitHubTree {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitHubTree.class);
+    private static final Pattern REPO_PATTERN =
+            Pattern.compile("github\\.com/([^/]+)/([^/]+?)(?:\\.git)?(?:/tree/(.+))?(?:/.*)?$");
+    private static final Pattern ENTRY_PATTERN = Pattern.compile("\\{[^{}]*\\}");
+    private static final Pattern PATH_PATTERN = Pattern.compile("\"path\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern TYPE_PATTERN = Pattern.compile("\"type\"\\s*:\\s*\"blob\"");
+    private static final Pattern REF_PATTERN =
+            Pattern.compile("\"ref\"\\s*:\\s*\"refs/(?:heads|tags)/((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final Pattern SHA_PATTERN = Pattern.compile("\"sha\"\\s*:\\s*\"([0-9a-f]{40})\"");
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final String owner;
+    private final String repo;
+    private final String ref;
+
+    private GitHubTree(String owner, String repo, String ref) {
+        this.owner = owner;
+        this.repo = repo;
+        this.ref = ref;
+    }
+
+    /**
+     * Parses a GitHub URL, looking the ref up with the given token when the path after
+     * {@code /tree/} has more than one segment. Returns null if the URL is not a GitHub one.
+     */
+    public static GitHubTree fromUrl(String url, String token) {
+        Matcher matcher = REPO_PATTERN.matcher(url.trim());
+        if (!matcher.find()) {
+            return null;
+        }
+        String owner = matcher.group(1);
+        String repo = matcher.group(2);
+        String treePath = matcher.group(3) != null ? matcher.group(3).replaceAll("/+$", "") : "";
+        String ref;
+        if (treePath.isEmpty()) {
+            ref = "HEAD";
+        } else if (treePath.indexOf('/') < 0) {
+            ref = treePath;
+        } else {
+            ref = resolveRef(owner, repo, treePath, token);
+        }
+        return new GitHubTree(owner, repo, ref);
+    }
+
+    /**
+     * Finds the branch, or failing that the tag, that the path after {@code /tree/} starts with,
+     * preferring the longest. Falls back to the first segment of the path.
+     */
+    private static String resolveRef(String owner, String repo, String treePath, String token) {
+        String first = treePath.substring(0, treePath.indexOf('/'));
+        for (String kind : new String[]{"heads", "tags"}) {
+            String best = null;
+            for (String name : matchingRefs(owner, repo, kind, first, token)) {
+                boolean prefix = treePath.equals(name) || treePath.startsWith(name + "/");
+                if (prefix && (best == null || name.length() > best.length())) {
+                    best = name;
+                }
+            }
+            if (best != null) {
+                logger.debug("Resolved ref {} of {}/{} from {}", best, owner, repo, treePath);
+                return best;
+            }
+        }
+        logger.warn("No branch or tag of {}/{} matches {}; using {}", owner, repo, treePath, first);
+        return first;
+    }
+
+    /**
+     * Names of the branches or tags ({@code kind} is "heads" or "tags") starting with a prefix,
+     * or an empty list if they cannot be read.
+     */
+    private static List<String> matchingRefs(String owner, String repo, String kind, String prefix, String token) {
+        List<String> names = new ArrayList<>();
+        String api = "https://api.github.com/repos/" + owner + "/" + repo + "/git/matching-refs/" + kind + "/"
+                + URLEncoder.encode(prefix, StandardCharsets.UTF_8).replace("+", "%20");
+        try {
+            HttpResponse<String> response = get(api, token);
+            if (response.statusCode() != 200) {
+                logger.warn("Ref request for {}/{} returned HTTP {}", owner, repo, response.statusCode());
+                return names;
+            }
+            Matcher refMatcher = REF_PATTERN.matcher(response.body());
+            while (refMatcher.find()) {
+                names.add(unescape(refMatcher.group(1)));
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list refs of {}/{}: {}", owner, repo, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return names;
+    }
+
+    public String getRepository() {
+        return owner + "/" + repo;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    /**
+     * Fetches the path to blob SHA mapping for the whole ref.
+     * Returns an empty map if the tree cannot be read, so callers fall back to uncached fetching.
+     */
+    public Map<String, String> fetchBlobShas(String token) {
+        Map<String, String> shas = new HashMap<>();
+        String api = "https://api.github.com/repos/" + owner + "/" + repo + "/git/trees/" + ref + "?recursive=1";
+        try {
+            HttpResponse<String> response = get(api, token);
+            if (response.statusCode() != 200) {
+                logger.warn("Tree request for {}@{} returned HTTP {}", getRepository(), ref, response.statusCode());
+                return shas;
+            }
+            String body = response.body();
+            if (body.contains("\"truncated\":true")) {
+                logger.warn("Tree for {}@{} is truncated; uncovered files will not be cached", getRepository(), ref);
+            }
+
+            Matcher entryMatcher = ENTRY_PATTERN.matcher(body);
+            while (entryMatcher.find()) {
+                String entry = entryMatcher.group();
+                if (!TYPE_PATTERN.matcher(entry).find()) {
+                    continue;
+                }
+                Matcher pathMatcher = PATH_PATTERN.matcher(entry);
+                Matcher shaMatcher = SHA_PATTERN.matcher(entry);
+                if (pathMatcher.find() && shaMatcher.find()) {
+                    shas.put(unescape(pathMatcher.group(1)), shaMatcher.group(1));
+                }
+            }
+            logger.info("Resolved {} blob SHAs for {}@{}", shas.size(), getRepository(), ref);
+        } catch (IOException e) {
+            logger.warn("Could not read tree for {}@{}: {}", getRepository(), ref, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return shas;
+    }
+
+    private static HttpResponse<String> get(String api, String token) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(api))
+                .header("Accept", "application/vnd.github+json")
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 >= value.length()) {
+                result.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 'n' -> result.append('\n');
+                case 't' -> result.append('\t');
+                case 'u' -> {
+                    result.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                    i += 4;
+                }
+                default -> result.append(next);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -2,24 +2,50 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * GridPanel class to display squares based on the Blackboard state.
+ * GridPanel class to display the files of the selected folder as a squarified treemap, with
+ * the area of each file proportional to its lines of code. Once loading is done, squares in
+ * a dependency cycle get a red outline. The cells are rendered once into an offscreen image;
+ * a selection change only repaints the cells it affects.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.4
+ * @version 1.8
  */
 public class GridPanel extends JPanel implements PropertyChangeListener {
 
+    private static final Logger logger = LoggerFactory.getLogger(GridPanel.class);
+    private static final Color LARGE_COLOR = new Color(240, 140, 140);
+    private static final Color MEDIUM_COLOR = new Color(255, 245, 150);
+    private static final Color SMALL_COLOR = new Color(180, 240, 180);
+    private static final BasicStroke THIN_STROKE = new BasicStroke(1);
+    private static final BasicStroke CYCLE_STROKE = new BasicStroke(2);
+    private static final BasicStroke SELECTED_STROKE = new BasicStroke(3);
+
     private boolean loading = false;
     private boolean ready = false;
+    private boolean hasPartialResults = false;
     private Square selectedSquare = null;
     private Square hoveredSquare = null;
     private JPanel visualizationPanel;
     private JTextField selectedFileField;
+    private TreemapLayout layout = TreemapLayout.compute(java.util.List.of(), 0, 0);
+    private int maxLines = 1;
+
+    // Cells rendered offscreen, and what they were rendered for
+    private BufferedImage gridImage;
+    private TreemapLayout imageLayout;
+    private boolean imageShowsCycles;
+    private double imageScale;
+    private TreemapLayout selectedCellLayout;
+    private Square selectedCellSquare;
+    private int selectedCellIndex = -1;
 
     public GridPanel() {
         setLayout(new BorderLayout());
@@ -28,10 +54,10 @@ public class GridPanel extends JPanel implements PropertyChangeListener {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                if (loading) {
-                    drawLoading(g);
-                } else if (ready) {
+                if (ready || (loading && hasPartialResults)) {
                     drawSquares(g);
+                } else if (loading) {
+                    drawLoading(g);
                 }
             }
         };
@@ -69,26 +95,33 @@ public class GridPanel extends JPanel implements PropertyChangeListener {
         if (evt.getPropertyName().equals("blackboardLoading")) {
             loading = (boolean) evt.getNewValue();
             if (loading) ready = false;
+        } else if (evt.getPropertyName().equals("squaresAdded")) {
+            hasPartialResults = true;
         } else if (evt.getPropertyName().equals("blackboardReady")) {
             loading = false;
             ready = true;
         } else if (evt.getPropertyName().equals("blackboardCleared")) {
+            hasPartialResults = false;
             selectedSquare = null;
             hoveredSquare = null;
             selectedFileField.setText("");
         } else if (evt.getPropertyName().equals("selectedFileName")) {
             selectedFileField.setText((String) evt.getNewValue());
+            return;
         } else if (evt.getPropertyName().equals("selectedFolderPath")) {
             // When folder selection changes, clear the selected file
             selectedSquare = null;
             selectedFileField.setText("");
+        } else {
+            // Status messages and other events leave the grid as it is
+            return;
         }
         visualizationPanel.repaint();
     }
 
     private void drawSquares(Graphics g) {
-        java.util.List<Square> squares = Blackboard.getInstance().getFilteredSquares();
-        if (squares.isEmpty()) {
+        TreemapLayout layout = currentLayout();
+        if (layout.size() == 0) {
             g.setColor(Color.GRAY);
             g.setFont(new Font("Arial", Font.PLAIN, 14));
             String message = "Select a folder from the tree to view files";
@@ -100,44 +133,129 @@ public class GridPanel extends JPanel implements PropertyChangeListener {
             return;
         }
 
-        java.util.List<Square> comparisonSquares;
-        if (squares.size() == 1) {
-            String filePath = squares.get(0).getPath();
-            comparisonSquares = Blackboard.getInstance().getSquaresInSameFolder(filePath);
-        } else {
-            comparisonSquares = squares;
+        // The cells come from the cached image; only the selection is drawn on every paint,
+        // and the clip keeps both to the dirty region
+        Graphics2D g2d = (Graphics2D) g;
+        double scale = g2d.getTransform().getScaleX();
+        g.drawImage(renderedGrid(layout, scale), 0, 0, visualizationPanel.getWidth(), visualizationPanel.getHeight(), null);
+
+        int cell = selectedCell(layout);
+        if (cell >= 0) {
+            Rectangle bounds = cellBounds(layout, cell);
+            g.setColor(Color.BLUE);
+            g2d.setStroke(SELECTED_STROKE);
+            g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            g2d.setStroke(THIN_STROKE);
         }
+    }
+
+    /**
+     * Image of every cell of a layout, drawn again only for a new layout, when cycles become
+     * available, or when the display scale changes.
+     */
+    private BufferedImage renderedGrid(TreemapLayout layout, double scale) {
+        boolean showCycles = ready;
+        if (gridImage != null && imageLayout == layout && imageShowsCycles == showCycles && imageScale == scale) {
+            return gridImage;
+        }
+        long start = System.nanoTime();
+        int width = (int) Math.ceil(visualizationPanel.getWidth() * scale);
+        int height = (int) Math.ceil(visualizationPanel.getHeight() * scale);
+        if (gridImage == null || gridImage.getWidth() != width || gridImage.getHeight() != height) {
+            gridImage = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g = gridImage.createGraphics();
+        g.setColor(visualizationPanel.getBackground());
+        g.fillRect(0, 0, gridImage.getWidth(), gridImage.getHeight());
+        g.scale(scale, scale);
+
+        CycleAnalysis cycles = showCycles ? Blackboard.getInstance().getSnapshot().getCycleAnalysis() : null;
+        for (int cell = 0; cell < layout.size(); cell++) {
+            Square square = layout.getSquare(cell);
+            Rectangle bounds = cellBounds(layout, cell);
 
-        int cols = (int) Math.ceil(Math.sqrt(squares.size()));
-        int rows = (int) Math.ceil((double) squares.size() / cols);
-        int squareWidth = visualizationPanel.getWidth() / cols;
-        int squareHeight = visualizationPanel.getHeight() / rows;
-
-        int maxLines = comparisonSquares.stream().mapToInt(Square::getLinesOfCode).max().orElse(1);
-
-        for (int i = 0; i < squares.size(); i++) {
-            Square square = squares.get(i);
-            int row = i / cols;
-            int col = i % cols;
-            int x = col * squareWidth;
-            int y = row * squareHeight;
-
-            Color color = calculateColor(square.getComplexity(), square.getLinesOfCode(), maxLines);
-            g.setColor(color);
-            g.fillRect(x, y, squareWidth - 2, squareHeight - 2);
-
-            // Highlight selected square
-            if (square == selectedSquare) {
-                g.setColor(Color.BLUE);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setStroke(new BasicStroke(3));
-                g.drawRect(x, y, squareWidth - 2, squareHeight - 2);
-                g2d.setStroke(new BasicStroke(1));
+            g.setColor(calculateColor(square.getComplexity(), square.getLinesOfCode(), maxLines));
+            g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+
+            if (cycles != null && cycles.isInCycle(square)) {
+                g.setColor(Color.RED);
+                g.setStroke(CYCLE_STROKE);
+                g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+                g.setStroke(THIN_STROKE);
             } else {
                 g.setColor(Color.BLACK);
-                g.drawRect(x, y, squareWidth - 2, squareHeight - 2);
+                g.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+            }
+        }
+        g.dispose();
+        imageLayout = layout;
+        imageShowsCycles = showCycles;
+        imageScale = scale;
+        logger.debug("Rendered {} cells in {} ms", layout.size(), (System.nanoTime() - start) / 1_000_000);
+        return gridImage;
+    }
+
+    /**
+     * Bounds of a cell as drawn, leaving a gap to its neighbours.
+     */
+    private static Rectangle cellBounds(TreemapLayout layout, int cell) {
+        Rectangle bounds = layout.getBounds(cell);
+        bounds.width = Math.max(1, bounds.width - 2);
+        bounds.height = Math.max(1, bounds.height - 2);
+        return bounds;
+    }
+
+    /**
+     * Cell of the selected square in a layout, or -1; looked up once per layout. Matched by
+     * path, as publishing a version may replace the selected square with an updated copy.
+     */
+    private int selectedCell(TreemapLayout layout) {
+        if (selectedSquare == null) {
+            return -1;
+        }
+        if (selectedCellLayout != layout || selectedCellSquare != selectedSquare) {
+            selectedCellIndex = -1;
+            String selectedPath = selectedSquare.getPath();
+            for (int cell = 0; cell < layout.size(); cell++) {
+                if (layout.getSquare(cell).getPath().equals(selectedPath)) {
+                    selectedCellIndex = cell;
+                    break;
+                }
             }
+            selectedCellLayout = layout;
+            selectedCellSquare = selectedSquare;
         }
+        return selectedCellIndex;
+    }
+
+    /**
+     * Asks for a repaint of just the area around a cell, wide enough for the selection stroke.
+     */
+    private void repaintCell(int cell) {
+        if (cell >= 0) {
+            Rectangle bounds = cellBounds(layout, cell);
+            bounds.grow(3, 3);
+            visualizationPanel.repaint(bounds);
+        }
+    }
+
+    /**
+     * Treemap of the selected folder at the panel's size, laid out again only when the
+     * folder's squares or the size change.
+     */
+    private TreemapLayout currentLayout() {
+        java.util.List<Square> squares = Blackboard.getInstance().getFilteredSquares();
+        int width = visualizationPanel.getWidth();
+        int height = visualizationPanel.getHeight();
+        if (!layout.matches(squares, width, height)) {
+            layout = TreemapLayout.compute(squares, width, height);
+            // A lone file, such as one selected in the tree, is colored relative to its folder
+            java.util.List<Square> comparisonSquares = squares.size() == 1
+                    ? Blackboard.getInstance().getSquaresInSameFolder(squares.get(0).getPath())
+                    : squares;
+            maxLines = comparisonSquares.stream().mapToInt(Square::getLinesOfCode).max().orElse(1);
+        }
+        return layout;
     }
 
     private void drawLoading(Graphics g) {
@@ -151,24 +269,22 @@ public class GridPanel extends JPanel implements PropertyChangeListener {
         double linePercentage = (maxLines > 0) ? (double) lines / maxLines : 0.0;
 
         // Determine color based on line count percentage
-        Color color;
         if (linePercentage >= 2.0 / 3.0) {
-            color = new Color(240, 140, 140);
+            return LARGE_COLOR;
         } else if (linePercentage >= 1.0 / 3.0) {
-            color = new Color(255, 245, 150);
-        } else {
-            color = new Color(180, 240, 180);
+            return MEDIUM_COLOR;
         }
-
-        return color;
+        return SMALL_COLOR;
     }
 
     private void handleMouseClick(int mouseX, int mouseY) {
-        Square clickedSquare = getSquareAtPosition(mouseX, mouseY);
-        if (clickedSquare != null) {
-            selectedSquare = clickedSquare;
-            Blackboard.getInstance().setSelectedFileName(clickedSquare.getName());
-            visualizationPanel.repaint();
+        TreemapLayout layout = currentLayout();
+        int clickedCell = layout.cellAt(mouseX, mouseY);
+        if (clickedCell >= 0) {
+            repaintCell(selectedCell(layout));
+            selectedSquare = layout.getSquare(clickedCell);
+            Blackboard.getInstance().setSelectedFile(selectedSquare);
+            repaintCell(clickedCell);
         }
     }
 
@@ -177,10 +293,12 @@ public class GridPanel extends JPanel implements PropertyChangeListener {
         if (newHoveredSquare != hoveredSquare) {
             hoveredSquare = newHoveredSquare;
             if (hoveredSquare != null) {
-                String tooltip = String.format("<html>%s<br>Lines: %d<br>Complexity: %d</html>",
+                int cycleSize = ready ? Blackboard.getInstance().getSnapshot().getCycleAnalysis().getCycleSize(hoveredSquare) : 0;
+                String tooltip = String.format("<html>%s<br>Lines: %d<br>Complexity: %d%s</html>",
                         hoveredSquare.getName(),
                         hoveredSquare.getLinesOfCode(),
-                        hoveredSquare.getComplexity());
+                        hoveredSquare.getComplexity(),
+                        cycleSize > 0 ? "<br>In a dependency cycle of " + cycleSize + " classes" : "");
                 visualizationPanel.setToolTipText(tooltip);
             } else {
                 visualizationPanel.setToolTipText(null);
@@ -189,21 +307,8 @@ public class GridPanel extends JPanel implements PropertyChangeListener {
     }
 
     private Square getSquareAtPosition(int mouseX, int mouseY) {
-        java.util.List<Square> squares = Blackboard.getInstance().getFilteredSquares();
-        if (squares.isEmpty()) return null;
-
-        int cols = (int) Math.ceil(Math.sqrt(squares.size()));
-        int rows = (int) Math.ceil((double) squares.size() / cols);
-        int squareWidth = visualizationPanel.getWidth() / cols;
-        int squareHeight = visualizationPanel.getHeight() / rows;
-
-        int col = mouseX / squareWidth;
-        int row = mouseY / squareHeight;
-        int index = row * cols + col;
-
-        if (index >= 0 && index < squares.size()) {
-            return squares.get(index);
-        }
-        return null;
+        TreemapLayout layout = currentLayout();
+        int cell = layout.cellAt(mouseX, mouseY);
+        return cell >= 0 ? layout.getSquare(cell) : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,168 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * HistoryAnalyzer class to record the metrics of a local checkout over its recent commits.
+ * Files are analyzed once per blob: a file whose blob SHA was seen at an earlier commit
+ * keeps that square, moved to the commit's symbol table, and is only read again when a
+ * class added since then is used by name in it. The cost therefore follows the number of
+ * distinct blobs rather than commits times files.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.2
+ */
+public class HistoryAnalyzer implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoryAnalyzer.class);
+
+    private final String location;
+    private final int maxCommits;
+    private volatile boolean cancelled;
+
+    // Every blob analyzed so far, keyed by blob SHA and path, as the path names the class
+    private final Map<String, AnalyzedBlob> blobs = new HashMap<>();
+    private int analyzedFiles;
+    private int reusedFiles;
+
+    public HistoryAnalyzer(String location, int maxCommits) {
+        this.location = location;
+        this.maxCommits = maxCommits;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("History cancelled");
+        }
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        try (GitHistory git = GitHistory.open(location)) {
+            status("Listing commits...");
+            List<GitHistory.Commit> commits = git.listCommits(maxCommits);
+            MetricHistory history = new MetricHistory(commits);
+            ClassSymbolTable symbols = null;
+            Set<String> classNames = Set.of();
+
+            for (int c = 0; c < commits.size(); c++) {
+                checkCancelled();
+                GitHistory.Commit commit = commits.get(c);
+                status(String.format("Analyzing commit %d/%d: %s", c + 1, commits.size(), commit.subject()));
+
+                Map<String, String> javaFiles = new LinkedHashMap<>();
+                Set<String> names = new HashSet<>();
+                for (Map.Entry<String, String> blob : git.listBlobs(commit.id()).entrySet()) {
+                    String path = blob.getKey();
+                    if (path.endsWith(".java")) {
+                        javaFiles.put(path, blob.getValue());
+                        names.add(path.substring(path.lastIndexOf("/") + 1).replace(".java", ""));
+                    }
+                }
+
+                // Consecutive commits usually have the same classes and share one table
+                if (symbols == null || !names.equals(classNames)) {
+                    symbols = new ClassSymbolTable(names);
+                    classNames = names;
+                }
+
+                Map<ClassSymbolTable, Set<String>> addedSince = new IdentityHashMap<>();
+                List<Square> squares = new ArrayList<>(javaFiles.size());
+                for (Map.Entry<String, String> file : javaFiles.entrySet()) {
+                    squares.add(squareOf(git, file.getKey(), file.getValue(), classNames, symbols, addedSince));
+                }
+                history.record(squares, DependencyGraph.build(squares));
+            }
+
+            logger.info("History of {} commits: {} files analyzed, {} reused, {} bytes of series ({} ms)",
+                    commits.size(), analyzedFiles, reusedFiles, history.getEncodedBytes(),
+                    (System.nanoTime() - start) / 1_000_000);
+            checkCancelled();
+            Blackboard.getInstance().setMetricHistory(this, history);
+            status(String.format("History of %d commits analyzed (%d distinct files)", commits.size(), analyzedFiles));
+
+        } catch (CancellationException e) {
+            logger.info("History of {} cancelled", location);
+        } catch (IOException e) {
+            if (cancelled) {
+                logger.info("History of {} cancelled", location);
+                return;
+            }
+            logger.error("Error reading history of {}", location, e);
+            status("Error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // Unexpected git output or a failed analysis; without this the status stays on the last commit
+            logger.error("Error analyzing history of {}", location, e);
+            status("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Square of a blob together with the hashes of its capitalized identifiers, see
+     * {@link JavaSource#typeNameHashes()}.
+     */
+    private record AnalyzedBlob(Square square, int[] typeNames) {
+    }
+
+    private Square squareOf(GitHistory git, String path, String sha, Set<String> classNames, ClassSymbolTable symbols,
+                            Map<ClassSymbolTable, Set<String>> addedSince) throws IOException {
+        String key = sha + " " + path;
+        AnalyzedBlob blob = blobs.get(key);
+        Square square;
+
+        // A class added since the blob was analyzed may now resolve in it
+        if (blob != null && blob.square().getSymbols() != symbols) {
+            Set<String> added = addedSince.computeIfAbsent(blob.square().getSymbols(),
+                    old -> addedClasses(classNames, old));
+            if (AnalysisState.mayReference(blob.typeNames(), added)) {
+                blob = null;
+            } else {
+                blob = new AnalyzedBlob(blob.square().withSymbols(symbols), blob.typeNames());
+            }
+        }
+
+        if (blob == null) {
+            String content = git.readBlob(sha);
+            JavaSource source = JavaSource.lex(content);
+            square = Delegate.analyze(path, content, source, classNames, symbols);
+            blob = new AnalyzedBlob(square, source.typeNameHashes());
+            analyzedFiles++;
+        } else {
+            square = blob.square();
+            reusedFiles++;
+        }
+        blobs.put(key, blob);
+        return square;
+    }
+
+    private static Set<String> addedClasses(Set<String> classNames, ClassSymbolTable previous) {
+        Set<String> added = new HashSet<>();
+        for (String name : classNames) {
+            if (!previous.contains(name)) {
+                added.add(name);
+            }
+        }
+        return added;
+    }
+
+    private void status(String message) {
+        if (!cancelled) {
+            Blackboard.getInstance().setHistoryStatusMessage(this, message);
+        }
+    }
+}
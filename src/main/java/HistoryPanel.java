@@ -0,0 +1,257 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * HistoryPanel class to plot how a metric changed over the recent commits of a local
+ * checkout, for the whole repository or for the selected file.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public class HistoryPanel extends JPanel implements PropertyChangeListener {
+
+    private static final int MARGIN = 60;
+    private static final int DEFAULT_COMMITS = 100;
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneId.systemDefault());
+
+    private final JTextField urlField;
+    private final JComboBox<MetricStore.Metric> metricSelector = new JComboBox<>(MetricStore.Metric.values());
+    private final JComboBox<String> scopeSelector = new JComboBox<>(new String[]{"Repository", "Selected file"});
+    private final JPanel chartPanel;
+    private final JLabel statusLabel = new JLabel(" ");
+    private MetricHistory history;
+    private double[] values = new double[0];
+    private String title = "";
+    private int hoveredCommit = -1;
+
+    public HistoryPanel(JTextField urlField) {
+        this.urlField = urlField;
+        setLayout(new BorderLayout());
+
+        JSpinner commitSpinner = new JSpinner(new SpinnerNumberModel(DEFAULT_COMMITS, 1, 5000, 50));
+        JButton analyzeButton = new JButton("Analyze");
+        analyzeButton.addActionListener(e -> {
+            String location = urlField.getText().trim();
+            if (location.isEmpty()) {
+                Blackboard.getInstance().setStatusMessage("Error: No local path provided");
+                return;
+            }
+            Blackboard.getInstance().loadHistory(location, (Integer) commitSpinner.getValue());
+        });
+        metricSelector.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String key = value != null ? ((MetricStore.Metric) value).getKey() : "";
+                return super.getListCellRendererComponent(list, key, index, isSelected, cellHasFocus);
+            }
+        });
+        metricSelector.addActionListener(e -> updateSeries());
+        scopeSelector.addActionListener(e -> updateSeries());
+
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("Commits: "));
+        top.add(commitSpinner);
+        top.add(analyzeButton);
+        top.add(new JLabel("  Metric: "));
+        top.add(metricSelector);
+        top.add(new JLabel("  Scope: "));
+        top.add(scopeSelector);
+        top.add(new JLabel("  "));
+        top.add(statusLabel);
+        add(top, BorderLayout.NORTH);
+
+        chartPanel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                Graphics2D g2d = (Graphics2D) g;
+                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                if (values.length > 0) {
+                    drawChart(g2d);
+                } else {
+                    drawEmptyMessage(g2d);
+                }
+            }
+        };
+        chartPanel.setBackground(Color.WHITE);
+        chartPanel.addMouseMotionListener(new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                handleMouseMove(e.getX());
+            }
+        });
+        add(chartPanel, BorderLayout.CENTER);
+
+        Blackboard.getInstance().addPropertyChangeListener(this);
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        String name = evt.getPropertyName();
+        if (name.equals("metricHistoryReady") || name.equals("blackboardCleared")) {
+            history = Blackboard.getInstance().getMetricHistory();
+            updateSeries();
+        } else if (name.equals("historyStatusMessage")) {
+            statusLabel.setText((String) evt.getNewValue());
+        } else if ((name.equals("selectedFilePath") || name.equals("selectedFolderPath"))
+                && scopeSelector.getSelectedIndex() == 1) {
+            updateSeries();
+        }
+    }
+
+    private void updateSeries() {
+        MetricStore.Metric metric = (MetricStore.Metric) metricSelector.getSelectedItem();
+        values = new double[0];
+        title = "";
+        if (history != null && metric != null) {
+            if (scopeSelector.getSelectedIndex() == 0) {
+                values = history.getTotals(metric);
+                title = "Repository " + metric.getKey();
+            } else {
+                String path = selectedPath();
+                double[] series = path != null ? history.getSeries(path, metric) : null;
+                if (series != null) {
+                    values = series;
+                    title = path + " " + metric.getKey();
+                }
+            }
+        }
+        hoveredCommit = -1;
+        chartPanel.setToolTipText(null);
+        chartPanel.repaint();
+    }
+
+    /**
+     * Full path of the selected file: the one picked in a view, or the one selected in the tree.
+     * Null when a folder is selected, as its files may share names.
+     */
+    private String selectedPath() {
+        Blackboard blackboard = Blackboard.getInstance();
+        String filePath = blackboard.getSelectedFilePath();
+        if (!filePath.isEmpty()) {
+            return filePath;
+        }
+        String treePath = blackboard.getSelectedFolderPath();
+        List<Square> selected = blackboard.getSnapshot().getSquaresAt(treePath);
+        return selected.size() == 1 && selected.get(0).getPath().equals(treePath) ? treePath : null;
+    }
+
+    private void drawChart(Graphics2D g2d) {
+        int width = chartPanel.getWidth();
+        int height = chartPanel.getHeight();
+        double max = 0;
+        for (double value : values) {
+            if (!Double.isNaN(value)) {
+                max = Math.max(max, value);
+            }
+        }
+        if (max == 0) {
+            max = 1;
+        }
+
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawLine(MARGIN, height - MARGIN, width - MARGIN, height - MARGIN);
+        g2d.drawLine(MARGIN, MARGIN, MARGIN, height - MARGIN);
+
+        g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+        g2d.drawString(title, MARGIN, MARGIN - 20);
+        g2d.setFont(new Font("Arial", Font.PLAIN, 10));
+        for (int i = 0; i <= 4; i++) {
+            int y = height - MARGIN - i * (height - 2 * MARGIN) / 4;
+            g2d.drawLine(MARGIN - 5, y, MARGIN, y);
+            g2d.drawString(formatValue(max * i / 4), 5, y + 5);
+        }
+        List<GitHistory.Commit> commits = history.getCommits();
+        g2d.drawString(DATE_FORMAT.format(Instant.ofEpochSecond(commits.get(0).time())),
+                MARGIN - 20, height - MARGIN + 20);
+        g2d.drawString(DATE_FORMAT.format(Instant.ofEpochSecond(commits.get(values.length - 1).time())),
+                width - MARGIN - 40, height - MARGIN + 20);
+
+        if (hoveredCommit >= 0) {
+            g2d.setColor(new Color(200, 200, 200));
+            g2d.setStroke(new BasicStroke(1));
+            int x = xOf(hoveredCommit);
+            g2d.drawLine(x, MARGIN, x, height - MARGIN);
+        }
+
+        // Gaps where the file did not exist break the line
+        g2d.setColor(new Color(50, 100, 200));
+        g2d.setStroke(new BasicStroke(2));
+        int previousX = -1;
+        int previousY = -1;
+        for (int commit = 0; commit < values.length; commit++) {
+            if (Double.isNaN(values[commit])) {
+                previousX = -1;
+                continue;
+            }
+            int x = xOf(commit);
+            int y = height - MARGIN - (int) (values[commit] / max * (height - 2 * MARGIN));
+            if (previousX >= 0) {
+                g2d.drawLine(previousX, previousY, x, y);
+            } else {
+                g2d.fillOval(x - 2, y - 2, 4, 4);
+            }
+            previousX = x;
+            previousY = y;
+        }
+    }
+
+    private int xOf(int commit) {
+        int chartWidth = chartPanel.getWidth() - 2 * MARGIN;
+        return MARGIN + (values.length > 1 ? commit * chartWidth / (values.length - 1) : chartWidth / 2);
+    }
+
+    private static String formatValue(double value) {
+        return value == Math.rint(value) && value >= 10 ? String.valueOf((long) value) : String.format("%.2f", value);
+    }
+
+    private void drawEmptyMessage(Graphics2D g2d) {
+        g2d.setColor(Color.GRAY);
+        g2d.setFont(new Font("Arial", Font.PLAIN, 14));
+        String message = history == null
+                ? "Enter a local git checkout above and press Analyze to record its history"
+                : "Select a file from the tree to view its history";
+        FontMetrics fm = g2d.getFontMetrics();
+        g2d.drawString(message, (chartPanel.getWidth() - fm.stringWidth(message)) / 2, chartPanel.getHeight() / 2);
+    }
+
+    private void handleMouseMove(int mouseX) {
+        int newHovered = -1;
+        if (values.length > 0) {
+            int chartWidth = chartPanel.getWidth() - 2 * MARGIN;
+            double position = values.length > 1 ? (double) (mouseX - MARGIN) * (values.length - 1) / chartWidth : 0;
+            newHovered = (int) Math.round(Math.max(0, Math.min(values.length - 1, position)));
+        }
+        if (newHovered != hoveredCommit) {
+            hoveredCommit = newHovered;
+            String tooltip = null;
+            if (newHovered >= 0) {
+                GitHistory.Commit commit = history.getCommits().get(newHovered);
+                double value = values[newHovered];
+                tooltip = String.format("<html><b>%s</b> %s<br>%s<br>%s</html>",
+                        commit.id().substring(0, 8),
+                        DATE_FORMAT.format(Instant.ofEpochSecond(commit.time())),
+                        escape(commit.subject()),
+                        Double.isNaN(value) ? "File not present" : formatValue(value));
+            }
+            chartPanel.setToolTipText(tooltip);
+            chartPanel.repaint();
+        }
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
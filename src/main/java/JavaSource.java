@@ -0,0 +1,243 @@
+import java.util.Arrays;
+
+/**
+ * A Java file lexed once: the text with comments, string literals, char literals and
+ * text blocks stripped, plus the token stream over that text. Every extractor in
+ * Delegate works from the same JavaSource instead of cleaning the file again.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public final class JavaSource {
+
+    private final char[] text;
+    private int length;
+    private int[] starts;
+    private int[] ends;
+    private int count;
+    private String cleaned;
+    private String classBody;
+
+    private JavaSource(char[] text) {
+        this.text = text;
+        this.starts = new int[Math.max(16, text.length / 4)];
+        this.ends = new int[starts.length];
+    }
+
+    /**
+     * Strips comments and literals and splits the remaining code into identifier,
+     * number and single-character punctuation tokens, all in one pass.
+     */
+    public static JavaSource lex(String content) {
+        int n = content.length();
+        char[] out = new char[n];
+        int len = 0;
+        JavaSource source = new JavaSource(out);
+
+        int i = 0;
+        while (i < n) {
+            char c = content.charAt(i);
+            char next = i + 1 < n ? content.charAt(i + 1) : '\0';
+
+            if (c == '/' && next == '/') {
+                i += 2;
+                while (i < n && content.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                int close = content.indexOf("*/", i + 2);
+                i = close < 0 ? n : close + 2;
+                out[len++] = ' ';
+            } else if (c == '"' && next == '"' && i + 2 < n && content.charAt(i + 2) == '"') {
+                i = skipTextBlock(content, i + 3);
+            } else if (c == '"' || c == '\'') {
+                i = skipLiteral(content, i + 1, c);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = len;
+                while (i < n && Character.isJavaIdentifierPart(content.charAt(i))) {
+                    out[len++] = content.charAt(i++);
+                }
+                source.addToken(start, len);
+            } else if (c >= '0' && c <= '9') {
+                int start = len;
+                while (i < n && (Character.isLetterOrDigit(content.charAt(i)) || content.charAt(i) == '.'
+                        || content.charAt(i) == '_')) {
+                    out[len++] = content.charAt(i++);
+                }
+                source.addToken(start, len);
+            } else {
+                out[len++] = c;
+                i++;
+                if (!Character.isWhitespace(c)) {
+                    source.addToken(len - 1, len);
+                }
+            }
+        }
+        source.length = len;
+        return source;
+    }
+
+    private static int skipLiteral(String content, int i, char quote) {
+        int n = content.length();
+        while (i < n) {
+            char c = content.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote) {
+                return i + 1;
+            } else if (c == '\n') {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    private static int skipTextBlock(String content, int i) {
+        int n = content.length();
+        while (i < n) {
+            char c = content.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == '"' && content.startsWith("\"\"\"", i)) {
+                return i + 3;
+            } else {
+                i++;
+            }
+        }
+        return n;
+    }
+
+    private void addToken(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * The source text with comments and literals removed.
+     */
+    public String cleaned() {
+        if (cleaned == null) {
+            cleaned = new String(text, 0, length);
+        }
+        return cleaned;
+    }
+
+    /**
+     * The cleaned text with everything nested deeper than the type body removed, leaving
+     * type declarations and member declarations.
+     */
+    public String classBody() {
+        if (classBody == null) {
+            StringBuilder result = new StringBuilder(length);
+            int braceDepth = 0;
+            boolean inClassBody = false;
+
+            for (int i = 0; i < length; i++) {
+                char c = text[i];
+                if (c == '{') {
+                    if (braceDepth == 0) {
+                        inClassBody = true;
+                        result.append(c);
+                    }
+                    braceDepth++;
+                } else if (c == '}') {
+                    braceDepth--;
+                    if (braceDepth == 0 && inClassBody) {
+                        result.append(c);
+                    }
+                } else if (braceDepth <= 1) {
+                    result.append(c);
+                }
+            }
+            classBody = result.toString();
+        }
+        return classBody;
+    }
+
+    public int tokenCount() {
+        return count;
+    }
+
+    public boolean isIdentifier(int token) {
+        return token >= 0 && token < count && Character.isJavaIdentifierStart(text[starts[token]]);
+    }
+
+    public boolean isUpperIdentifier(int token) {
+        return isIdentifier(token) && Character.isUpperCase(text[starts[token]]);
+    }
+
+    public boolean isLowerIdentifier(int token) {
+        return isIdentifier(token) && Character.isLowerCase(text[starts[token]]);
+    }
+
+    /**
+     * Resolves an identifier token against the project classes without allocating.
+     */
+    public int symbolId(int token, ClassSymbolTable symbols) {
+        return symbols.lookup(text, starts[token], ends[token] - starts[token]);
+    }
+
+    /**
+     * Sorted, distinct hash codes of the capitalized identifiers, the only tokens a project
+     * class is resolved from. Kept instead of the names to tell cheaply whether the file may
+     * refer to a class; a collision only means the file is analyzed again.
+     */
+    public int[] typeNameHashes() {
+        int[] hashes = new int[count];
+        int found = 0;
+        for (int token = 0; token < count; token++) {
+            if (isUpperIdentifier(token)) {
+                int hash = 0;
+                for (int i = starts[token]; i < ends[token]; i++) {
+                    hash = 31 * hash + text[i];
+                }
+                hashes[found++] = hash;
+            }
+        }
+        Arrays.sort(hashes, 0, found);
+        int unique = 0;
+        for (int i = 0; i < found; i++) {
+            if (unique == 0 || hashes[i] != hashes[unique - 1]) {
+                hashes[unique++] = hashes[i];
+            }
+        }
+        return Arrays.copyOf(hashes, unique);
+    }
+
+    public boolean is(int token, char c) {
+        return token >= 0 && token < count && ends[token] - starts[token] == 1 && text[starts[token]] == c;
+    }
+
+    public boolean is(int token, String word) {
+        if (token < 0 || token >= count || ends[token] - starts[token] != word.length()) {
+            return false;
+        }
+        int start = starts[token];
+        for (int i = 0; i < word.length(); i++) {
+            if (text[start + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String tokenText(int token) {
+        return new String(text, starts[token], ends[token] - starts[token]);
+    }
+
+    public int tokenStart(int token) {
+        return starts[token];
+    }
+
+    public int tokenLength(int token) {
+        return ends[token] - starts[token];
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Files under one directory, capped in total size and evicted least-recently-used first, with
+ * the access order kept across restarts through the files' modification times. Only the index
+ * is guarded by a lock; files are read, written and deleted outside it, so threads hitting the
+ * store do not queue behind each other's I/O.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class LruFileStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LruFileStore.class);
+
+    private final Path root;
+    private final long maxBytes;
+    private final LinkedHashMap<Path, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // A lock rather than synchronized, which would pin virtual threads to their carriers
+    private final ReentrantLock lock = new ReentrantLock();
+    private long totalBytes = 0;
+
+    /**
+     * @param depth how many directory levels below the root hold entries
+     */
+    public LruFileStore(Path root, long maxBytes, int depth) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+        loadIndex(depth);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Whether the store holds the file; counts as a use for eviction.
+     */
+    public boolean contains(Path file) {
+        lock.lock();
+        try {
+            return entries.get(file) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads an entry and marks it recently used on disk. On failure the caller decides whether
+     * to {@link #remove(Path)} it.
+     */
+    public byte[] read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        return bytes;
+    }
+
+    /**
+     * Writes an entry atomically and evicts the least recently used ones over the cap. Entries
+     * larger than the whole cap are not stored.
+     */
+    public void write(Path file, byte[] bytes) throws IOException {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temp, bytes);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<Path> evicted;
+        lock.lock();
+        try {
+            Long previous = entries.put(file, (long) bytes.length);
+            totalBytes += bytes.length - (previous == null ? 0 : previous);
+            evicted = evict();
+        } finally {
+            lock.unlock();
+        }
+        delete(evicted);
+    }
+
+    public void remove(Path file) {
+        lock.lock();
+        try {
+            Long size = entries.remove(file);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Already gone or not deletable; the index no longer refers to it
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTotalBytes() {
+        lock.lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the least recently used entries from the index until it fits the cap, returning
+     * their files for the caller to delete once the lock is released. Called with the lock held.
+     */
+    private List<Path> evict() {
+        List<Path> evicted = new ArrayList<>();
+        Iterator<Map.Entry<Path, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Path, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+        }
+        return evicted;
+    }
+
+    private void delete(List<Path> evicted) {
+        for (Path file : evicted) {
+            try {
+                Files.deleteIfExists(file);
+                logger.debug("Evicted {}", file);
+            } catch (IOException e) {
+                logger.warn("Could not evict {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private void loadIndex(int depth) {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        // Oldest access first so the LinkedHashMap starts in LRU order
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(root, depth)) {
+            walk.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                    .forEach(files::add);
+        } catch (IOException e) {
+            logger.warn("Could not scan {}: {}", root, e.getMessage());
+            return;
+        }
+        files.sort(Comparator.comparingLong(LruFileStore::lastModified));
+        for (Path file : files) {
+            try {
+                long size = Files.size(file);
+                entries.put(file, size);
+                totalBytes += size;
+            } catch (IOException e) {
+                logger.debug("Skipping {}: {}", file, e.getMessage());
+            }
+        }
+        delete(evict());
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
@@ -10,7 +10,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.5
+ * @version 1.8
  */
 public class Main extends JFrame implements PropertyChangeListener {
 
@@ -27,7 +27,7 @@ public class Main extends JFrame implements PropertyChangeListener {
         controller = new Controller(urlField);
 
         JPanel top = new JPanel(new BorderLayout());
-        top.add(new JLabel(" GitHub Folder URL: "), BorderLayout.WEST);
+        top.add(new JLabel(" GitHub Folder URL or Local Path: "), BorderLayout.WEST);
         top.add(urlField, BorderLayout.CENTER);
         top.add(okButton, BorderLayout.EAST);
 
@@ -40,6 +40,10 @@ public class Main extends JFrame implements PropertyChangeListener {
         tabbedPane.addTab("Grid", gridPanel);
         logger.debug("GridPanel added to tabs");
 
+        RepositoryMapPanel mapPanel = new RepositoryMapPanel();
+        tabbedPane.addTab("Map", mapPanel);
+        logger.debug("RepositoryMapPanel added to tabs");
+
         MetricsPanel metricsPanel = new MetricsPanel();
         tabbedPane.addTab("Metrics", metricsPanel);
         logger.debug("MetricsPanel added to tabs");
@@ -48,6 +52,14 @@ public class Main extends JFrame implements PropertyChangeListener {
         tabbedPane.addTab("Diagram", diagramPanel);
         logger.debug("DiagramPanel added to tabs");
 
+        QueryPanel queryPanel = new QueryPanel();
+        tabbedPane.addTab("Query", queryPanel);
+        logger.debug("QueryPanel added to tabs");
+
+        HistoryPanel historyPanel = new HistoryPanel(urlField);
+        tabbedPane.addTab("History", historyPanel);
+        logger.debug("HistoryPanel added to tabs");
+
         tabbedPane.addChangeListener(e -> {
             int selectedIndex = tabbedPane.getSelectedIndex();
             String tabName = tabbedPane.getTitleAt(selectedIndex);
@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Metrics of every file across a range of commits. Each file keeps one delta-encoded series:
+ * an entry is written only at commits where one of its metrics or its presence changed, as
+ * the commit gap followed by the change of each value, all as zig-zag varints. A file that
+ * stays the same over hundreds of commits therefore costs a few bytes. Repository totals are
+ * kept per commit as they are recorded.
+ *
+ * <p>Commits are recorded in order, oldest first; readers decode a series into one value per
+ * commit, with NaN where the file did not exist.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class MetricHistory {
+
+    // Recorded values, in the order they are delta-encoded
+    private static final int PRESENT = 0;
+    private static final int LINES = 1;
+    private static final int COMPLEXITY = 2;
+    private static final int AFFERENT = 3;
+    private static final int EFFERENT = 4;
+    private static final int ABSTRACT = 5;
+    private static final int FIELDS = 6;
+
+    private final List<GitHistory.Commit> commits;
+    private final Map<String, Series> series = new HashMap<>();
+    private final double[][] totals;
+    private final int[] fileCounts;
+    private int recordedCommits;
+
+    public MetricHistory(List<GitHistory.Commit> commits) {
+        this.commits = List.copyOf(commits);
+        this.totals = new double[MetricStore.Metric.values().length][commits.size()];
+        this.fileCounts = new int[commits.size()];
+    }
+
+    /**
+     * Records the squares of the next commit. Ca comes from the commit's dependency graph, where
+     * node i is the i-th square.
+     */
+    public synchronized void record(List<Square> squares, DependencyGraph graph) {
+        int commit = recordedCommits++;
+        int[] values = new int[FIELDS];
+        values[PRESENT] = 1;
+        for (int i = 0; i < squares.size(); i++) {
+            Square square = squares.get(i);
+            values[LINES] = square.getLinesOfCode();
+            values[COMPLEXITY] = square.getComplexity();
+            values[AFFERENT] = graph.getAfferentCoupling(i);
+            values[EFFERENT] = square.getEfferentCoupling();
+            values[ABSTRACT] = square.isAbstract() || square.isInterface() ? 1 : 0;
+            series.computeIfAbsent(square.getPath(), k -> new Series()).append(commit, values);
+            for (MetricStore.Metric metric : MetricStore.Metric.values()) {
+                totals[metric.ordinal()][commit] += valueOf(metric, values);
+            }
+        }
+
+        // Files missing from this commit get a removal entry, once
+        int[] absent = new int[FIELDS];
+        for (Series file : series.values()) {
+            if (file.lastCommit < commit && file.last[PRESENT] == 1) {
+                file.append(commit, absent);
+            }
+        }
+
+        fileCounts[commit] = squares.size();
+        if (!squares.isEmpty()) {
+            // The coupling ratios are averaged over the files, the counts summed
+            for (MetricStore.Metric metric : List.of(MetricStore.Metric.INSTABILITY,
+                    MetricStore.Metric.ABSTRACTNESS, MetricStore.Metric.DISTANCE)) {
+                totals[metric.ordinal()][commit] /= squares.size();
+            }
+        }
+    }
+
+    public List<GitHistory.Commit> getCommits() {
+        return commits;
+    }
+
+    public synchronized int getRecordedCommits() {
+        return recordedCommits;
+    }
+
+    public synchronized Set<String> getPaths() {
+        return new TreeSet<>(series.keySet());
+    }
+
+    /**
+     * Number of Java files at each commit.
+     */
+    public synchronized int[] getFileCounts() {
+        return Arrays.copyOf(fileCounts, recordedCommits);
+    }
+
+    /**
+     * Repository-wide value of a metric at each commit: the sum of lines, complexity, Ca and Ce,
+     * or the mean instability, abstractness and distance.
+     */
+    public synchronized double[] getTotals(MetricStore.Metric metric) {
+        return Arrays.copyOf(totals[metric.ordinal()], recordedCommits);
+    }
+
+    /**
+     * Value of a metric for one file at each commit, NaN where the file did not exist; null if the
+     * file never existed.
+     */
+    public synchronized double[] getSeries(String path, MetricStore.Metric metric) {
+        Series file = series.get(path);
+        if (file == null) {
+            return null;
+        }
+        double[] result = new double[recordedCommits];
+        Arrays.fill(result, Double.NaN);
+        int[] values = new int[FIELDS];
+        int commit = -1;
+        int position = 0;
+        while (position < file.size) {
+            // Each entry holds from its commit until the next entry's
+            int[] cursor = {position};
+            int next = commit + readVarint(file.data, cursor);
+            if (commit >= 0 && values[PRESENT] == 1) {
+                Arrays.fill(result, commit, next, valueOf(metric, values));
+            }
+            for (int field = 0; field < FIELDS; field++) {
+                values[field] += zigZagDecode(readVarint(file.data, cursor));
+            }
+            commit = next;
+            position = cursor[0];
+        }
+        if (commit >= 0 && values[PRESENT] == 1) {
+            Arrays.fill(result, commit, recordedCommits, valueOf(metric, values));
+        }
+        return result;
+    }
+
+    /**
+     * Bytes used by the encoded series of all files.
+     */
+    public synchronized long getEncodedBytes() {
+        long bytes = 0;
+        for (Series file : series.values()) {
+            bytes += file.size;
+        }
+        return bytes;
+    }
+
+    private static double valueOf(MetricStore.Metric metric, int[] values) {
+        int ce = values[EFFERENT];
+        int ca = values[AFFERENT];
+        double instability = ce + ca > 0 ? (double) ce / (ce + ca) : 0.0;
+        return switch (metric) {
+            case LINES -> values[LINES];
+            case COMPLEXITY -> values[COMPLEXITY];
+            case AFFERENT -> ca;
+            case EFFERENT -> ce;
+            case INSTABILITY -> instability;
+            case ABSTRACTNESS -> values[ABSTRACT];
+            case DISTANCE -> Math.abs(values[ABSTRACT] + instability - 1.0);
+        };
+    }
+
+    private static int zigZagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigZagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readVarint(byte[] data, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Encoded entries of one file, with the values of its last entry to diff against.
+     */
+    private static final class Series {
+
+        private byte[] data = new byte[16];
+        private int size;
+        private int entryCommit = -1;
+        private int lastCommit = -1;
+        private final int[] last = new int[FIELDS];
+
+        void append(int commit, int[] values) {
+            if (lastCommit >= 0 && Arrays.equals(values, last)) {
+                lastCommit = commit;
+                return;
+            }
+            // The gap counts from the previous entry, not the last commit the file was seen at
+            writeVarint(commit - entryCommit);
+            for (int field = 0; field < FIELDS; field++) {
+                writeVarint(zigZagEncode(values[field] - last[field]));
+                last[field] = values[field];
+            }
+            entryCommit = commit;
+            lastCommit = commit;
+        }
+
+        private void writeVarint(int value) {
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+}
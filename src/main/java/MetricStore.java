@@ -0,0 +1,418 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the metrics of a snapshot's squares. Row i is the i-th square; each
+ * metric is a primitive array, and the rows sorted by a metric are worked out the first time
+ * a query needs that order. Range filters become a binary search over that order, top-N reads
+ * its tail, and sorting a folder sorts the rows' ranks, so nothing is boxed on the way.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class MetricStore {
+
+    public enum Metric {
+        LINES("lines"),
+        COMPLEXITY("complexity"),
+        AFFERENT("ca"),
+        EFFERENT("ce"),
+        INSTABILITY("instability"),
+        ABSTRACTNESS("abstractness"),
+        DISTANCE("distance");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public static Metric fromKey(String key) {
+            for (Metric metric : values()) {
+                if (metric.key.equals(key) || metric.name().equalsIgnoreCase(key)) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Unknown metric: " + key);
+        }
+    }
+
+    /**
+     * Inclusive bounds on one metric.
+     */
+    public record Range(Metric metric, double min, double max) {
+    }
+
+    /**
+     * Rows in a folder (or anywhere, if null) matching every range, sorted by a metric and cut to a limit.
+     */
+    public record Query(String folder, List<Range> ranges, Metric sortBy, boolean descending, int limit) {
+
+        /**
+         * Parses queries such as {@code complexity>20 ca>=5 folder:src/main sort:-lines limit:50}. Conditions
+         * use {@code < <= > >= =}; {@code sort:} takes a metric, descending with a leading minus.
+         *
+         * @throws IllegalArgumentException if the text is not a valid query
+         */
+        public static Query parse(String text) {
+            String folder = null;
+            List<Range> ranges = new ArrayList<>();
+            Metric sortBy = null;
+            boolean descending = true;
+            int limit = Integer.MAX_VALUE;
+
+            for (String token : text.trim().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                String lower = token.toLowerCase(Locale.ROOT);
+                if (lower.startsWith("folder:")) {
+                    folder = token.substring("folder:".length());
+                } else if (lower.startsWith("sort:")) {
+                    String key = lower.substring("sort:".length());
+                    descending = !key.startsWith("+");
+                    sortBy = Metric.fromKey(key.startsWith("-") || key.startsWith("+") ? key.substring(1) : key);
+                } else if (lower.startsWith("limit:") || lower.startsWith("top:")) {
+                    limit = parseLimit(lower.substring(lower.indexOf(':') + 1));
+                } else {
+                    ranges.add(parseCondition(lower));
+                }
+            }
+            if (sortBy == null) {
+                sortBy = ranges.isEmpty() ? Metric.COMPLEXITY : ranges.get(0).metric();
+            }
+            return new Query(folder, List.copyOf(ranges), sortBy, descending, limit);
+        }
+
+        private static int parseLimit(String value) {
+            try {
+                int limit = Integer.parseInt(value);
+                if (limit <= 0) {
+                    throw new IllegalArgumentException("Limit must be positive: " + value);
+                }
+                return limit;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + value);
+            }
+        }
+
+        private static Range parseCondition(String token) {
+            int opStart = 0;
+            while (opStart < token.length() && "<>=".indexOf(token.charAt(opStart)) < 0) {
+                opStart++;
+            }
+            int opEnd = opStart;
+            while (opEnd < token.length() && "<>=".indexOf(token.charAt(opEnd)) >= 0) {
+                opEnd++;
+            }
+            if (opStart == 0 || opStart == token.length() || opEnd == token.length()) {
+                throw new IllegalArgumentException("Expected a condition such as complexity>10: " + token);
+            }
+            Metric metric = Metric.fromKey(token.substring(0, opStart));
+            double value;
+            try {
+                value = Double.parseDouble(token.substring(opEnd));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + token.substring(opEnd));
+            }
+            return switch (token.substring(opStart, opEnd)) {
+                case ">" -> new Range(metric, Math.nextUp(value), Double.POSITIVE_INFINITY);
+                case ">=" -> new Range(metric, value, Double.POSITIVE_INFINITY);
+                case "<" -> new Range(metric, Double.NEGATIVE_INFINITY, Math.nextDown(value));
+                case "<=" -> new Range(metric, Double.NEGATIVE_INFINITY, value);
+                case "=", "==" -> new Range(metric, value, value);
+                default -> throw new IllegalArgumentException("Unknown operator in " + token);
+            };
+        }
+    }
+
+    private static final int METRICS = Metric.values().length;
+
+    private final List<Square> squares;
+    private final int[] lines;
+    private final int[] complexity;
+    private final int[] afferent;
+    private final int[] efferent;
+    private final double[] instability;
+    private final double[] abstractness;
+    private final double[] distance;
+
+    private final Map<String, Integer> folderIds = new HashMap<>();
+    private final int[] folderOffsets;
+    private final int[] folderRows;
+
+    // Rows in ascending order of each metric, and each row's position in that order
+    private final int[][] orders = new int[METRICS][];
+    private final int[][] ranks = new int[METRICS][];
+
+    private MetricStore(List<Square> squares) {
+        this.squares = squares;
+        int n = squares.size();
+        lines = new int[n];
+        complexity = new int[n];
+        afferent = new int[n];
+        efferent = new int[n];
+        instability = new double[n];
+        abstractness = new double[n];
+        distance = new double[n];
+
+        int[] folderOf = new int[n];
+        int[] folderSizes = new int[n];
+        for (int row = 0; row < n; row++) {
+            Square square = squares.get(row);
+            lines[row] = square.getLinesOfCode();
+            complexity[row] = square.getComplexity();
+            afferent[row] = square.getAfferentCoupling();
+            efferent[row] = square.getEfferentCoupling();
+            instability[row] = square.getInstability();
+            abstractness[row] = square.getAbstractness();
+            distance[row] = square.getDistance();
+
+            String folderPath = BlackboardSnapshot.folderOf(square.getPath());
+            Integer folder = folderIds.get(folderPath);
+            if (folder == null) {
+                folder = folderIds.size();
+                folderIds.put(folderPath, folder);
+            }
+            folderOf[row] = folder;
+            folderSizes[folder]++;
+        }
+
+        folderOffsets = new int[folderIds.size() + 1];
+        for (int folder = 0; folder < folderIds.size(); folder++) {
+            folderOffsets[folder + 1] = folderOffsets[folder] + folderSizes[folder];
+        }
+        folderRows = new int[n];
+        int[] cursor = Arrays.copyOf(folderOffsets, folderIds.size());
+        for (int row = 0; row < n; row++) {
+            folderRows[cursor[folderOf[row]]++] = row;
+        }
+    }
+
+    public static MetricStore build(List<Square> squares) {
+        return new MetricStore(squares);
+    }
+
+    public int size() {
+        return squares.size();
+    }
+
+    public Square getSquare(int row) {
+        return squares.get(row);
+    }
+
+    public double getValue(Metric metric, int row) {
+        return switch (metric) {
+            case LINES -> lines[row];
+            case COMPLEXITY -> complexity[row];
+            case AFFERENT -> afferent[row];
+            case EFFERENT -> efferent[row];
+            case INSTABILITY -> instability[row];
+            case ABSTRACTNESS -> abstractness[row];
+            case DISTANCE -> distance[row];
+        };
+    }
+
+    /**
+     * The n rows with the highest values of a metric, highest first.
+     */
+    public int[] topN(Metric metric, int n) {
+        int[] order = order(metric);
+        int count = Math.min(n, order.length);
+        int[] top = new int[count];
+        for (int i = 0; i < count; i++) {
+            top[i] = order[order.length - 1 - i];
+        }
+        return top;
+    }
+
+    /**
+     * Rows whose metric lies within [min, max], in ascending order of the metric.
+     */
+    public int[] range(Metric metric, double min, double max) {
+        int[] order = order(metric);
+        return Arrays.copyOfRange(order, lowerBound(metric, order, min), upperBound(metric, order, max));
+    }
+
+    /**
+     * Rows of the squares directly inside a folder, sorted by a metric.
+     */
+    public int[] sortFolder(String folder, Metric metric, boolean descending) {
+        int[] rows = rowsInFolder(folder);
+        sortByRank(rows, metric, descending);
+        return rows;
+    }
+
+    public int[] query(Query query) {
+        int[] rows;
+        if (query.folder() != null) {
+            rows = rowsInFolder(query.folder());
+        } else {
+            // Scan one slice of a metric's order: the narrowest range, or everything
+            Metric metric = query.sortBy();
+            int[] order = order(metric);
+            int from = 0;
+            int to = order.length;
+            for (Range range : query.ranges()) {
+                int[] rangeOrder = order(range.metric());
+                int low = lowerBound(range.metric(), rangeOrder, range.min());
+                int high = Math.max(low, upperBound(range.metric(), rangeOrder, range.max()));
+                if (high - low < to - from || (high - low == to - from && range.metric() == query.sortBy())) {
+                    metric = range.metric();
+                    order = rangeOrder;
+                    from = low;
+                    to = high;
+                }
+            }
+
+            if (metric == query.sortBy()) {
+                // Already sorted: walk from the wanted end and stop at the limit
+                int[] result = new int[Math.min(query.limit(), to - from)];
+                int count = 0;
+                for (int k = 0; k < to - from && count < result.length; k++) {
+                    int row = order[query.descending() ? to - 1 - k : from + k];
+                    if (matches(row, query.ranges())) {
+                        result[count++] = row;
+                    }
+                }
+                return count == result.length ? result : Arrays.copyOf(result, count);
+            }
+            rows = Arrays.copyOfRange(order, from, to);
+        }
+
+        int count = 0;
+        for (int row : rows) {
+            if (matches(row, query.ranges())) {
+                rows[count++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, count);
+        sortByRank(rows, query.sortBy(), query.descending());
+        return rows.length > query.limit() ? Arrays.copyOf(rows, query.limit()) : rows;
+    }
+
+    private boolean matches(int row, List<Range> ranges) {
+        for (Range range : ranges) {
+            double value = getValue(range.metric(), row);
+            if (value < range.min() || value > range.max()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] rowsInFolder(String folder) {
+        Integer id = folderIds.get(folder);
+        return id != null ? Arrays.copyOfRange(folderRows, folderOffsets[id], folderOffsets[id + 1]) : new int[0];
+    }
+
+    private void sortByRank(int[] rows, Metric metric, boolean descending) {
+        int[] rank = rank(metric);
+        int[] order = order(metric);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = rank[rows[i]];
+        }
+        Arrays.sort(rows);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = order[rows[i]];
+        }
+        if (descending) {
+            reverse(rows);
+        }
+    }
+
+    private int lowerBound(Metric metric, int[] order, double min) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getValue(metric, order[mid]) < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(Metric metric, int[] order, double max) {
+        int low = 0;
+        int high = order.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getValue(metric, order[mid]) <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private synchronized int[] order(Metric metric) {
+        int[] order = orders[metric.ordinal()];
+        if (order == null) {
+            double[] keys = new double[size()];
+            for (int row = 0; row < keys.length; row++) {
+                keys[row] = getValue(metric, row);
+            }
+            order = sortedRows(keys);
+            orders[metric.ordinal()] = order;
+        }
+        return order;
+    }
+
+    private synchronized int[] rank(Metric metric) {
+        int[] rank = ranks[metric.ordinal()];
+        if (rank == null) {
+            int[] order = order(metric);
+            rank = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                rank[order[i]] = i;
+            }
+            ranks[metric.ordinal()] = rank;
+        }
+        return rank;
+    }
+
+    // Sorts the keys themselves, then drops each row into the slots of its value; rows with
+    // equal keys keep their row order
+    private static int[] sortedRows(double[] keys) {
+        int n = keys.length;
+        double[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        int[] used = new int[n];
+        int[] rows = new int[n];
+        for (int row = 0; row < n; row++) {
+            int low = 0;
+            int high = n;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sorted[mid] < keys[row]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            rows[low + used[low]++] = row;
+        }
+        return rows;
+    }
+
+    private static void reverse(int[] rows) {
+        for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+            int swap = rows[i];
+            rows[i] = rows[j];
+            rows[j] = swap;
+        }
+    }
+}
@@ -2,31 +2,99 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * MetricsPanel class to display Instability vs Abstractness metrics.
+ * MetricsPanel class to display Instability vs Abstractness metrics, either for the classes
+ * of the selected folder or for every package of the repository. Classes and packages in a
+ * dependency cycle are outlined in red.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.4
+ * @version 1.8
  */
 public class MetricsPanel extends JPanel implements PropertyChangeListener {
 
     private boolean loading = false;
     private boolean ready = false;
+    private boolean packageView = false;
     private JPanel chartPanel;
-    private List<Square> displayedSquares;
-    private Square hoveredSquare = null;
     private static final int MARGIN = 60;
     private static final int POINT_RADIUS = 8;
+    private static final int PACKAGE_POINT_RADIUS = 5;
+    private static final int HOVER_SLACK = 2;
+    private static final int DENSITY_THRESHOLD = 2000;
+    private static final int BIN_PIXELS = 8;
+    private static final int BIN_MEMBERS_SHOWN = 10;
+    private static final Color LOW_DENSITY_COLOR = new Color(255, 230, 150);
+    private static final Color HIGH_DENSITY_COLOR = new Color(150, 20, 20);
+    private static final Color GOOD_COLOR = new Color(100, 180, 100);
+    private static final Color FAIR_COLOR = new Color(255, 200, 100);
+    private static final Color POOR_COLOR = new Color(220, 100, 100);
+    private static final Color DIAGONAL_COLOR = new Color(200, 200, 200);
+    private static final BasicStroke AXIS_STROKE = new BasicStroke(2);
+    private static final BasicStroke DIAGONAL_STROKE =
+            new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0);
+    private static final BasicStroke POINT_STROKE = new BasicStroke(1);
+
+    // Plotted classes or packages, worked out when the data changes rather than on every paint;
+    // a source is the Square or PackageMetrics.Entry a point stands for
+    private int pointCount;
+    private double[] pointInstability = new double[0];
+    private double[] pointAbstractness = new double[0];
+    private double[] pointDistance = new double[0];
+    private boolean[] pointInCycle = new boolean[0];
+    private Object[] pointSources = new Object[0];
+    private int hoveredPoint = -1;
+
+    // Screen positions and a uniform grid of them for hover, for one chart size
+    private int[] pointX = new int[0];
+    private int[] pointY = new int[0];
+    private int[] gridOffsets = new int[1];
+    private int[] gridPoints = new int[0];
+    private int gridColumns;
+    private int gridRows;
+    private int gridCellSize;
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+
+    // Density mode: points binned into a 2D histogram over the chart, drawn as one image
+    private JComboBox<String> displaySelector;
+    private int binColumns;
+    private int binRows;
+    private int[] binOffsets = new int[1];
+    private int[] binPoints = new int[0];
+    private int maxBinCount;
+    private BufferedImage densityImage;
+    private int hoveredBin = -1;
 
     public MetricsPanel() {
         setLayout(new BorderLayout());
-        displayedSquares = new ArrayList<>();
+
+        JComboBox<String> viewSelector = new JComboBox<>(new String[]{"Classes in folder", "All packages"});
+        viewSelector.addActionListener(e -> {
+            packageView = viewSelector.getSelectedIndex() == 1;
+            updateDisplayedPoints();
+            chartPanel.repaint();
+        });
+        displaySelector = new JComboBox<>(new String[]{"Auto", "Points", "Density"});
+        displaySelector.addActionListener(e -> {
+            hoveredPoint = -1;
+            hoveredBin = -1;
+            chartPanel.setToolTipText(null);
+            chartPanel.repaint();
+        });
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(new JLabel("View: "));
+        top.add(viewSelector);
+        top.add(new JLabel("  Display: "));
+        top.add(displaySelector);
+        add(top, BorderLayout.NORTH);
 
         chartPanel = new JPanel() {
             @Override
@@ -35,10 +103,10 @@ public class MetricsPanel extends JPanel implements PropertyChangeListener {
                 Graphics2D g2d = (Graphics2D) g;
                 g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-                if (loading) {
-                    drawLoading(g2d);
-                } else if (ready && !displayedSquares.isEmpty()) {
+                if ((ready || loading) && pointCount > 0) {
                     drawChart(g2d);
+                } else if (loading) {
+                    drawLoading(g2d);
                 } else {
                     drawEmptyMessage(g2d);
                 }
@@ -65,19 +133,230 @@ public class MetricsPanel extends JPanel implements PropertyChangeListener {
         } else if (evt.getPropertyName().equals("blackboardReady")) {
             loading = false;
             ready = true;
-            updateDisplayedSquares();
+            updateDisplayedPoints();
+        } else if (evt.getPropertyName().equals("squaresAdded")) {
+            // New squares may land in the selected folder and new edges shift existing points
+            updateDisplayedPoints();
         } else if (evt.getPropertyName().equals("blackboardCleared")) {
-            displayedSquares.clear();
-            hoveredSquare = null;
+            setPointCount(0);
+            hoveredPoint = -1;
+            hoveredBin = -1;
+            chartPanel.setToolTipText(null);
         } else if (evt.getPropertyName().equals("selectedFolderPath")) {
-            updateDisplayedSquares();
+            updateDisplayedPoints();
         }
         chartPanel.repaint();
     }
 
-    private void updateDisplayedSquares() {
-        displayedSquares.clear();
-        displayedSquares.addAll(Blackboard.getInstance().getFilteredSquares());
+    private void updateDisplayedPoints() {
+        Object hoveredSource = hoveredPoint >= 0 ? pointSources[hoveredPoint] : null;
+        String hoveredKey = hoveredSource != null ? keyOf(hoveredSource) : null;
+
+        // Cycles are only looked at once loading is done, not for every partial snapshot
+        CycleAnalysis cycles = ready ? Blackboard.getInstance().getSnapshot().getCycleAnalysis() : null;
+        if (packageView) {
+            List<PackageMetrics.Entry> entries = Blackboard.getInstance().getPackageMetrics();
+            setPointCount(entries.size());
+            for (int i = 0; i < pointCount; i++) {
+                PackageMetrics.Entry entry = entries.get(i);
+                pointSources[i] = entry;
+                pointInstability[i] = entry.instability();
+                pointAbstractness[i] = entry.abstractness();
+                pointDistance[i] = entry.distance();
+                pointInCycle[i] = cycles != null && cycles.isFolderInCycle(entry.folder());
+            }
+        } else {
+            List<Square> squares = Blackboard.getInstance().getFilteredSquares();
+            setPointCount(squares.size());
+            for (int i = 0; i < pointCount; i++) {
+                Square square = squares.get(i);
+                pointSources[i] = square;
+                pointInstability[i] = square.getInstability();
+                pointAbstractness[i] = square.getAbstractness();
+                pointDistance[i] = square.getDistance();
+                pointInCycle[i] = cycles != null && cycles.isInCycle(square);
+            }
+        }
+        layoutWidth = -1;
+
+        // Keep the hover on the same class or package when its point is rebuilt
+        hoveredPoint = -1;
+        hoveredBin = -1;
+        if (hoveredKey != null) {
+            for (int i = 0; i < pointCount; i++) {
+                if (keyOf(pointSources[i]).equals(hoveredKey)) {
+                    hoveredPoint = i;
+                    break;
+                }
+            }
+        }
+        chartPanel.setToolTipText(hoveredPoint >= 0 ? tooltipOf(hoveredPoint) : null);
+    }
+
+    private void setPointCount(int count) {
+        if (count > pointSources.length) {
+            int capacity = Math.max(count, pointSources.length * 2);
+            pointInstability = new double[capacity];
+            pointAbstractness = new double[capacity];
+            pointDistance = new double[capacity];
+            pointInCycle = new boolean[capacity];
+            pointSources = new Object[capacity];
+        }
+        Arrays.fill(pointSources, count, pointSources.length, null);
+        pointCount = count;
+        layoutWidth = -1;
+    }
+
+    private static String keyOf(Object source) {
+        return source instanceof Square square ? square.getPath() : ((PackageMetrics.Entry) source).folder();
+    }
+
+    /**
+     * Tooltip of a point, built when it is hovered rather than for every point.
+     */
+    private String tooltipOf(int point) {
+        if (pointSources[point] instanceof PackageMetrics.Entry entry) {
+            return String.format(
+                    "<html><b>%s</b><br>Classes: %d (%d abstract)<br>Abstractness: %.2f<br>Instability: %.2f<br>Distance: %.2f<br>Ce: %d, Ca: %d%s</html>",
+                    entry.folder().isEmpty() ? "(root)" : entry.folder(),
+                    entry.classes(),
+                    entry.abstractClasses(),
+                    entry.abstractness(),
+                    entry.instability(),
+                    entry.distance(),
+                    entry.efferentCoupling(),
+                    entry.afferentCoupling(),
+                    pointInCycle[point] ? "<br>In a package dependency cycle" : ""
+            );
+        }
+        Square square = (Square) pointSources[point];
+        int cycleSize = pointInCycle[point] ? Blackboard.getInstance().getSnapshot().getCycleAnalysis().getCycleSize(square) : 0;
+        return String.format(
+                "<html><b>%s</b><br>Abstractness: %.2f<br>Instability: %.2f<br>Distance: %.2f<br>Ce: %d, Ca: %d%s</html>",
+                square.getName(),
+                square.getAbstractness(),
+                square.getInstability(),
+                square.getDistance(),
+                square.getEfferentCoupling(),
+                square.getAfferentCoupling(),
+                cycleSize > 0 ? "<br>In a dependency cycle of " + cycleSize + " classes" : ""
+        );
+    }
+
+    /**
+     * Works out the screen position of every point and buckets them into a uniform grid of
+     * cells one point wide, so hover only looks at the points near the mouse. Done again only
+     * when the data or the chart size changes.
+     */
+    private void layoutPoints() {
+        int width = chartPanel.getWidth();
+        int height = chartPanel.getHeight();
+        if (width == layoutWidth && height == layoutHeight) {
+            return;
+        }
+        int chartWidth = width - 2 * MARGIN;
+        int chartHeight = height - 2 * MARGIN;
+        if (pointX.length < pointCount) {
+            pointX = new int[pointSources.length];
+            pointY = new int[pointSources.length];
+        }
+        for (int i = 0; i < pointCount; i++) {
+            pointX[i] = MARGIN + (int) (pointInstability[i] * chartWidth);
+            pointY[i] = height - MARGIN - (int) (pointAbstractness[i] * chartHeight);
+        }
+
+        gridCellSize = 2 * (pointRadius() + HOVER_SLACK);
+        gridColumns = Math.max(1, width / gridCellSize + 1);
+        gridRows = Math.max(1, height / gridCellSize + 1);
+        int cells = gridColumns * gridRows;
+        gridOffsets = new int[cells + 1];
+        int[] cellOf = new int[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            cellOf[i] = gridCell(pointX[i], pointY[i]);
+            gridOffsets[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            gridOffsets[c + 1] += gridOffsets[c];
+        }
+        gridPoints = new int[pointCount];
+        int[] cursor = Arrays.copyOf(gridOffsets, cells);
+        for (int i = 0; i < pointCount; i++) {
+            gridPoints[cursor[cellOf[i]]++] = i;
+        }
+        layoutBins(chartWidth, chartHeight);
+        layoutWidth = width;
+        layoutHeight = height;
+    }
+
+    /**
+     * Bins the points into a histogram with cells about {@value #BIN_PIXELS} pixels wide,
+     * listing the points of each bin. Rows go top to bottom, like the image they become.
+     */
+    private void layoutBins(int chartWidth, int chartHeight) {
+        binColumns = Math.max(1, chartWidth / BIN_PIXELS);
+        binRows = Math.max(1, chartHeight / BIN_PIXELS);
+        int bins = binColumns * binRows;
+        binOffsets = new int[bins + 1];
+        int[] binOf = new int[pointCount];
+        for (int i = 0; i < pointCount; i++) {
+            int column = Math.min(binColumns - 1, (int) (pointInstability[i] * binColumns));
+            int row = binRows - 1 - Math.min(binRows - 1, (int) (pointAbstractness[i] * binRows));
+            binOf[i] = row * binColumns + column;
+            binOffsets[binOf[i] + 1]++;
+        }
+        maxBinCount = 0;
+        for (int b = 0; b < bins; b++) {
+            maxBinCount = Math.max(maxBinCount, binOffsets[b + 1]);
+            binOffsets[b + 1] += binOffsets[b];
+        }
+        binPoints = new int[pointCount];
+        int[] cursor = Arrays.copyOf(binOffsets, bins);
+        for (int i = 0; i < pointCount; i++) {
+            binPoints[cursor[binOf[i]]++] = i;
+        }
+        densityImage = null;
+    }
+
+    /**
+     * Heatmap of the bins, one pixel each, shaded by the log of their count so a few crowded
+     * bins do not wash out the rest. Empty bins are left transparent.
+     */
+    private BufferedImage densityImage() {
+        if (densityImage == null) {
+            densityImage = new BufferedImage(binColumns, binRows, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) densityImage.getRaster().getDataBuffer()).getData();
+            double scale = Math.log1p(maxBinCount);
+            for (int b = 0; b < pixels.length; b++) {
+                int count = binOffsets[b + 1] - binOffsets[b];
+                if (count > 0) {
+                    double t = scale > 0 ? Math.log1p(count) / scale : 1;
+                    pixels[b] = blend(LOW_DENSITY_COLOR, HIGH_DENSITY_COLOR, t);
+                }
+            }
+        }
+        return densityImage;
+    }
+
+    private static int blend(Color from, Color to, double t) {
+        int red = (int) (from.getRed() + (to.getRed() - from.getRed()) * t);
+        int green = (int) (from.getGreen() + (to.getGreen() - from.getGreen()) * t);
+        int blue = (int) (from.getBlue() + (to.getBlue() - from.getBlue()) * t);
+        return 0xFF000000 | red << 16 | green << 8 | blue;
+    }
+
+    private boolean isDensityMode() {
+        int mode = displaySelector.getSelectedIndex();
+        return mode == 2 || (mode == 0 && pointCount > DENSITY_THRESHOLD);
+    }
+
+    private int gridCell(int x, int y) {
+        int column = Math.max(0, Math.min(gridColumns - 1, x / gridCellSize));
+        int row = Math.max(0, Math.min(gridRows - 1, y / gridCellSize));
+        return row * gridColumns + column;
+    }
+
+    private int pointRadius() {
+        return packageView ? PACKAGE_POINT_RADIUS : POINT_RADIUS;
     }
 
     private void drawChart(Graphics2D g2d) {
@@ -86,13 +365,21 @@ public class MetricsPanel extends JPanel implements PropertyChangeListener {
         int chartWidth = width - 2 * MARGIN;
         int chartHeight = height - 2 * MARGIN;
 
+        layoutPoints();
+        boolean density = isDensityMode();
+        if (density) {
+            // The heatmap goes under the axes and labels so they stay readable
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(densityImage(), MARGIN, MARGIN, chartWidth, chartHeight, null);
+        }
+
         g2d.setColor(Color.BLACK);
-        g2d.setStroke(new BasicStroke(2));
+        g2d.setStroke(AXIS_STROKE);
         g2d.drawLine(MARGIN, height - MARGIN, width - MARGIN, height - MARGIN); // X-axis
         g2d.drawLine(MARGIN, MARGIN, MARGIN, height - MARGIN); // Y-axis
 
-        g2d.setColor(new Color(200, 200, 200));
-        g2d.setStroke(new BasicStroke(2, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{5}, 0));
+        g2d.setColor(DIAGONAL_COLOR);
+        g2d.setStroke(DIAGONAL_STROKE);
         int x1 = MARGIN;
         int y1 = MARGIN;
         int x2 = width - MARGIN;
@@ -125,43 +412,97 @@ public class MetricsPanel extends JPanel implements PropertyChangeListener {
             g2d.drawString(yLabel, MARGIN - 30, y + 5);
         }
 
-        for (Square square : displayedSquares) {
-            // Calculate metrics for individual square
-            double abstractness = (square.isAbstract() || square.isInterface()) ? 1.0 : 0.0;
-
-            int ce = square.getEfferentCoupling();
-            int ca = square.getAfferentCoupling();
-            double instability = 0.0;
-            if (ce + ca > 0) {
-                instability = (double) ce / (ce + ca);
+        if (density) {
+            drawDensityOverlay(g2d, chartWidth, chartHeight);
+            return;
+        }
+        int radius = pointRadius();
+        String selectedFolder = Blackboard.getInstance().getSelectedFolderPath();
+        g2d.setStroke(POINT_STROKE);
+        for (int i = 0; i < pointCount; i++) {
+            int px = pointX[i];
+            int py = pointY[i];
+
+            if (i == hoveredPoint || (packageView && keyOf(pointSources[i]).equals(selectedFolder))) {
+                g2d.setColor(Color.BLUE);
+                g2d.fillOval(px - radius - 2, py - radius - 2, (radius + 2) * 2, (radius + 2) * 2);
             }
 
-            double distance = Math.abs(abstractness + instability - 1.0);
+            g2d.setColor(colorOf(pointDistance[i]));
+            g2d.fillOval(px - radius, py - radius, radius * 2, radius * 2);
+            g2d.setColor(pointInCycle[i] ? Color.RED : Color.BLACK);
+            g2d.drawOval(px - radius, py - radius, radius * 2, radius * 2);
+        }
+    }
 
-            int px = MARGIN + (int) (instability * chartWidth);
-            int py = height - MARGIN - (int) (abstractness * chartHeight);
+    private void drawDensityOverlay(Graphics2D g2d, int chartWidth, int chartHeight) {
+        if (hoveredBin >= 0) {
+            Rectangle bounds = binBounds(hoveredBin, chartWidth, chartHeight);
+            g2d.setColor(Color.BLUE);
+            g2d.setStroke(AXIS_STROKE);
+            g2d.drawRect(bounds.x, bounds.y, bounds.width, bounds.height);
+        }
 
-            Color pointColor;
-            if (distance < 0.3) {
-                pointColor = new Color(100, 180, 100);
-            } else if (distance < 0.5) {
-                pointColor = new Color(255, 200, 100);
-            } else {
-                pointColor = new Color(220, 100, 100);
-            }
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(new Font("Arial", Font.PLAIN, 10));
+        String legend = pointCount + (packageView ? " packages" : " classes") + ", up to " + maxBinCount + " per bin";
+        FontMetrics fm = g2d.getFontMetrics();
+        g2d.drawString(legend, MARGIN + chartWidth - fm.stringWidth(legend), MARGIN - 10);
+    }
 
-            if (square == hoveredSquare) {
-                g2d.setColor(Color.BLUE);
-                g2d.fillOval(px - POINT_RADIUS - 2, py - POINT_RADIUS - 2,
-                        (POINT_RADIUS + 2) * 2, (POINT_RADIUS + 2) * 2);
+    private Rectangle binBounds(int bin, int chartWidth, int chartHeight) {
+        int column = bin % binColumns;
+        int row = bin / binColumns;
+        int x0 = MARGIN + column * chartWidth / binColumns;
+        int y0 = MARGIN + row * chartHeight / binRows;
+        int x1 = MARGIN + (column + 1) * chartWidth / binColumns;
+        int y1 = MARGIN + (row + 1) * chartHeight / binRows;
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Tooltip of a bin: its count and range, and the first few of its members.
+     */
+    private String binTooltipOf(int bin) {
+        int start = binOffsets[bin];
+        int end = binOffsets[bin + 1];
+        int column = bin % binColumns;
+        int row = binRows - 1 - bin / binColumns;
+        int inCycle = 0;
+        for (int k = start; k < end; k++) {
+            if (pointInCycle[binPoints[k]]) {
+                inCycle++;
             }
+        }
+        StringBuilder tooltip = new StringBuilder(String.format(
+                "<html><b>%d %s</b><br>Instability: %.2f - %.2f<br>Abstractness: %.2f - %.2f",
+                end - start,
+                packageView ? "packages" : "classes",
+                (double) column / binColumns,
+                (double) (column + 1) / binColumns,
+                (double) row / binRows,
+                (double) (row + 1) / binRows));
+        if (inCycle > 0) {
+            tooltip.append("<br>").append(inCycle).append(" in a dependency cycle");
+        }
+        for (int k = start; k < Math.min(end, start + BIN_MEMBERS_SHOWN); k++) {
+            Object source = pointSources[binPoints[k]];
+            String name = source instanceof Square square ? square.getName() : keyOf(source);
+            tooltip.append("<br>").append(name.isEmpty() ? "(root)" : name);
+        }
+        if (end - start > BIN_MEMBERS_SHOWN) {
+            tooltip.append("<br>... and ").append(end - start - BIN_MEMBERS_SHOWN).append(" more");
+        }
+        return tooltip.append("</html>").toString();
+    }
 
-            g2d.setColor(pointColor);
-            g2d.fillOval(px - POINT_RADIUS, py - POINT_RADIUS, POINT_RADIUS * 2, POINT_RADIUS * 2);
-            g2d.setColor(Color.BLACK);
-            g2d.setStroke(new BasicStroke(1));
-            g2d.drawOval(px - POINT_RADIUS, py - POINT_RADIUS, POINT_RADIUS * 2, POINT_RADIUS * 2);
+    private static Color colorOf(double distance) {
+        if (distance < 0.3) {
+            return GOOD_COLOR;
+        } else if (distance < 0.5) {
+            return FAIR_COLOR;
         }
+        return POOR_COLOR;
     }
 
     private void drawLoading(Graphics2D g2d) {
@@ -173,7 +514,9 @@ public class MetricsPanel extends JPanel implements PropertyChangeListener {
     private void drawEmptyMessage(Graphics2D g2d) {
         g2d.setColor(Color.GRAY);
         g2d.setFont(new Font("Arial", Font.PLAIN, 14));
-        String message = "Select a folder from the tree to view metrics";
+        String message = packageView
+                ? "Load a repository to view package metrics"
+                : "Select a folder from the tree to view metrics";
         FontMetrics fm = g2d.getFontMetrics();
         int messageWidth = fm.stringWidth(message);
         g2d.drawString(message,
@@ -182,58 +525,69 @@ public class MetricsPanel extends JPanel implements PropertyChangeListener {
     }
 
     private void handleMouseMove(int mouseX, int mouseY) {
-        int width = chartPanel.getWidth();
-        int height = chartPanel.getHeight();
-        int chartWidth = width - 2 * MARGIN;
-        int chartHeight = height - 2 * MARGIN;
-
-        Square newHovered = null;
-        for (Square square : displayedSquares) {
-            double abstractness = (square.isAbstract() || square.isInterface()) ? 1.0 : 0.0;
-
-            int ce = square.getEfferentCoupling();
-            int ca = square.getAfferentCoupling();
-            double instability = 0.0;
-            if (ce + ca > 0) {
-                instability = (double) ce / (ce + ca);
+        if (pointCount > 0 && isDensityMode()) {
+            handleDensityMouseMove(mouseX, mouseY);
+            return;
+        }
+        int newHovered = -1;
+        if (pointCount > 0) {
+            layoutPoints();
+            // Points within reach of the mouse are all in its grid cell or the ones around it;
+            // the last one drawn is on top
+            int reach = pointRadius() + HOVER_SLACK;
+            int reachSquared = reach * reach;
+            int column = Math.max(0, Math.min(gridColumns - 1, mouseX / gridCellSize));
+            int row = Math.max(0, Math.min(gridRows - 1, mouseY / gridCellSize));
+            for (int r = Math.max(0, row - 1); r <= Math.min(gridRows - 1, row + 1); r++) {
+                for (int c = Math.max(0, column - 1); c <= Math.min(gridColumns - 1, column + 1); c++) {
+                    int cell = r * gridColumns + c;
+                    for (int k = gridOffsets[cell]; k < gridOffsets[cell + 1]; k++) {
+                        int i = gridPoints[k];
+                        int dx = mouseX - pointX[i];
+                        int dy = mouseY - pointY[i];
+                        if (i > newHovered && dx * dx + dy * dy <= reachSquared) {
+                            newHovered = i;
+                        }
+                    }
+                }
             }
+        }
 
-            int px = MARGIN + (int) (instability * chartWidth);
-            int py = height - MARGIN - (int) (abstractness * chartHeight);
+        if (newHovered != hoveredPoint) {
+            hoveredPoint = newHovered;
+            chartPanel.setToolTipText(hoveredPoint >= 0 ? tooltipOf(hoveredPoint) : null);
+            chartPanel.repaint();
+        }
+    }
 
-            double distance = Math.sqrt(Math.pow(mouseX - px, 2) + Math.pow(mouseY - py, 2));
-            if (distance <= POINT_RADIUS + 2) {
-                newHovered = square;
-                break;
+    private void handleDensityMouseMove(int mouseX, int mouseY) {
+        layoutPoints();
+        int chartWidth = chartPanel.getWidth() - 2 * MARGIN;
+        int chartHeight = chartPanel.getHeight() - 2 * MARGIN;
+        int newHovered = -1;
+        if (mouseX >= MARGIN && mouseX < MARGIN + chartWidth && mouseY >= MARGIN && mouseY < MARGIN + chartHeight) {
+            int column = (mouseX - MARGIN) * binColumns / chartWidth;
+            int row = (mouseY - MARGIN) * binRows / chartHeight;
+            int bin = row * binColumns + column;
+            if (binOffsets[bin + 1] > binOffsets[bin]) {
+                newHovered = bin;
             }
         }
 
-        if (newHovered != hoveredSquare) {
-            hoveredSquare = newHovered;
-            if (hoveredSquare != null) {
-                double abstractness = (hoveredSquare.isAbstract() || hoveredSquare.isInterface()) ? 1.0 : 0.0;
-                int ce = hoveredSquare.getEfferentCoupling();
-                int ca = hoveredSquare.getAfferentCoupling();
-                double instability = 0.0;
-                if (ce + ca > 0) {
-                    instability = (double) ce / (ce + ca);
-                }
-                double dist = Math.abs(abstractness + instability - 1.0);
-
-                String tooltip = String.format(
-                        "<html><b>%s</b><br>Abstractness: %.2f<br>Instability: %.2f<br>Distance: %.2f<br>Ce: %d, Ca: %d</html>",
-                        hoveredSquare.getName(),
-                        abstractness,
-                        instability,
-                        dist,
-                        ce,
-                        ca
-                );
-                chartPanel.setToolTipText(tooltip);
-            } else {
-                chartPanel.setToolTipText(null);
+        if (newHovered != hoveredBin) {
+            Rectangle previous = hoveredBin >= 0 ? binBounds(hoveredBin, chartWidth, chartHeight) : null;
+            hoveredBin = newHovered;
+            chartPanel.setToolTipText(hoveredBin >= 0 ? binTooltipOf(hoveredBin) : null);
+            // Only the outlines of the old and new bin change
+            if (previous != null) {
+                previous.grow(2, 2);
+                chartPanel.repaint(previous);
+            }
+            if (hoveredBin >= 0) {
+                Rectangle bounds = binBounds(hoveredBin, chartWidth, chartHeight);
+                bounds.grow(2, 2);
+                chartPanel.repaint(bounds);
             }
-            chartPanel.repaint();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,240 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Martin metrics per package, where a package is a folder. Ca counts the classes outside a
+ * package that depend on classes inside it and Ce the classes outside it that its classes
+ * depend on; abstractness is the share of abstract classes and interfaces.
+ *
+ * <p>The counts are kept as reference counts over cross-folder edges and updated from the
+ * squares that changed since the last snapshot, so only the packages those squares touch
+ * are recomputed. Edges go by efferent dependencies, which do not change once a square is
+ * added, so squares republished with new incoming edges cost nothing.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class PackageMetrics {
+
+    /**
+     * Metrics of one package.
+     */
+    public record Entry(String folder, int classes, int abstractClasses, int afferentCoupling, int efferentCoupling) {
+
+        public double abstractness() {
+            return classes > 0 ? (double) abstractClasses / classes : 0.0;
+        }
+
+        public double instability() {
+            int total = afferentCoupling + efferentCoupling;
+            return total > 0 ? (double) efferentCoupling / total : 0.0;
+        }
+
+        public double distance() {
+            return Math.abs(abstractness() + instability() - 1.0);
+        }
+    }
+
+    private ClassSymbolTable symbols;
+    private final List<Square> nodes = new ArrayList<>();
+    private int[] folderOfNode = new int[0];
+    private int[] nodeOfClass = new int[0];
+    private int[][] referrers = new int[0][];
+    private int[] referrerCounts = new int[0];
+
+    private final Map<String, Integer> folderIds = new HashMap<>();
+    private final List<String> folders = new ArrayList<>();
+    private int[] classes = new int[0];
+    private int[] abstractClasses = new int[0];
+    private int[] afferent = new int[0];
+    private int[] efferent = new int[0];
+    private final Map<Long, Integer> afferentEdges = new HashMap<>();
+    private final Map<Long, Integer> efferentEdges = new HashMap<>();
+    private final BitSet dirty = new BitSet();
+
+    private long version = -1;
+    private Entry[] entries = new Entry[0];
+    private List<Entry> published = List.of();
+
+    /**
+     * Brings the metrics up to date with a snapshot and returns every package in it. Returns
+     * the same list as long as the snapshot version does not change.
+     */
+    public synchronized List<Entry> update(BlackboardSnapshot snapshot) {
+        if (snapshot.getVersion() == version) {
+            return published;
+        }
+        List<Square> squares = snapshot.getSquares();
+        if (!canExtend(squares)) {
+            reset(squares.isEmpty() ? null : squares.get(0).getSymbols());
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            nodes.set(i, squares.get(i));
+        }
+        for (int i = nodes.size(); i < squares.size(); i++) {
+            add(squares.get(i));
+        }
+
+        if (!dirty.isEmpty() || entries.length != folders.size()) {
+            entries = Arrays.copyOf(entries, folders.size());
+            for (int folder = dirty.nextSetBit(0); folder >= 0; folder = dirty.nextSetBit(folder + 1)) {
+                entries[folder] = new Entry(folders.get(folder), classes[folder], abstractClasses[folder],
+                        afferent[folder], efferent[folder]);
+            }
+            dirty.clear();
+            published = Collections.unmodifiableList(Arrays.asList(entries.clone()));
+        }
+        version = snapshot.getVersion();
+        return published;
+    }
+
+    /**
+     * Metrics of one folder as of the last update, or null if it holds no squares.
+     */
+    public synchronized Entry get(String folder) {
+        Integer id = folderIds.get(folder);
+        return id != null && id < entries.length ? entries[id] : null;
+    }
+
+    // Squares already counted may only have been republished with other incoming edges
+    private boolean canExtend(List<Square> squares) {
+        if (squares.size() < nodes.size() || (!squares.isEmpty() && squares.get(0).getSymbols() != symbols)) {
+            return false;
+        }
+        for (int i = 0; i < nodes.size(); i++) {
+            Square before = nodes.get(i);
+            Square after = squares.get(i);
+            if (before != after && (!before.getPath().equals(after.getPath())
+                    || before.getEfferentIds() != after.getEfferentIds()
+                    || isAbstract(before) != isAbstract(after))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reset(ClassSymbolTable table) {
+        symbols = table;
+        int classCount = table != null ? table.size() : 0;
+        nodes.clear();
+        folderOfNode = new int[16];
+        nodeOfClass = new int[classCount];
+        Arrays.fill(nodeOfClass, -1);
+        referrers = new int[classCount][];
+        referrerCounts = new int[classCount];
+        folderIds.clear();
+        folders.clear();
+        classes = new int[16];
+        abstractClasses = new int[16];
+        afferent = new int[16];
+        efferent = new int[16];
+        afferentEdges.clear();
+        efferentEdges.clear();
+        dirty.clear();
+        entries = new Entry[0];
+        published = List.of();
+    }
+
+    private void add(Square square) {
+        int node = nodes.size();
+        int folder = folderId(BlackboardSnapshot.folderOf(square.getPath()));
+        nodes.add(square);
+        if (node == folderOfNode.length) {
+            folderOfNode = Arrays.copyOf(folderOfNode, node * 2);
+        }
+        folderOfNode[node] = folder;
+        classes[folder]++;
+        if (isAbstract(square)) {
+            abstractClasses[folder]++;
+        }
+        dirty.set(folder);
+
+        // The last square with a class name owns it, so edges into that class follow it around
+        int classId = square.getClassId();
+        if (classId >= 0) {
+            int previous = nodeOfClass[classId];
+            nodeOfClass[classId] = node;
+            for (int i = 0; i < referrerCounts[classId]; i++) {
+                int source = referrers[classId][i];
+                if (previous >= 0) {
+                    edge(source, classId, folderOfNode[previous], -1);
+                }
+                edge(source, classId, folder, 1);
+            }
+        }
+
+        for (int target : square.getEfferentIds()) {
+            addReferrer(target, node);
+            if (nodeOfClass[target] >= 0) {
+                edge(node, target, folderOfNode[nodeOfClass[target]], 1);
+            }
+        }
+    }
+
+    private void edge(int source, int targetClassId, int targetFolder, int delta) {
+        int sourceFolder = folderOfNode[source];
+        if (sourceFolder == targetFolder) {
+            return;
+        }
+        if (count(efferentEdges, key(sourceFolder, targetClassId), delta)) {
+            efferent[sourceFolder] += delta;
+            dirty.set(sourceFolder);
+        }
+        int sourceClassId = nodes.get(source).getClassId();
+        if (sourceClassId >= 0 && count(afferentEdges, key(targetFolder, sourceClassId), delta)) {
+            afferent[targetFolder] += delta;
+            dirty.set(targetFolder);
+        }
+    }
+
+    // Returns true when the pair starts or stops being counted
+    private static boolean count(Map<Long, Integer> edges, long key, int delta) {
+        int after = edges.merge(key, delta, Integer::sum);
+        if (after == 0) {
+            edges.remove(key);
+            return true;
+        }
+        return after == 1 && delta > 0;
+    }
+
+    private static long key(int folder, int classId) {
+        return ((long) folder << 32) | classId;
+    }
+
+    private void addReferrer(int classId, int node) {
+        int[] row = referrers[classId];
+        if (row == null) {
+            row = new int[2];
+        } else if (referrerCounts[classId] == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[referrerCounts[classId]++] = node;
+        referrers[classId] = row;
+    }
+
+    private int folderId(String folder) {
+        Integer id = folderIds.get(folder);
+        if (id == null) {
+            id = folders.size();
+            folderIds.put(folder, id);
+            folders.add(folder);
+            if (id == classes.length) {
+                classes = Arrays.copyOf(classes, id * 2);
+                abstractClasses = Arrays.copyOf(abstractClasses, id * 2);
+                afferent = Arrays.copyOf(afferent, id * 2);
+                efferent = Arrays.copyOf(efferent, id * 2);
+            }
+        }
+        return id;
+    }
+
+    private static boolean isAbstract(Square square) {
+        return square.isAbstract() || square.isInterface();
+    }
+}
@@ -1,42 +1,60 @@
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.HashMap;
 
 /**
- * Turns a list of Square objects into a PlantUML string.
+ * Turns a list of Square objects into a PlantUML string. Given the cycle analysis of the
+ * snapshot, classes in a dependency cycle are marked and the relationships inside a cycle
+ * are drawn in red.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.6
+ * @version 1.8
  */
 public class PlantUmlGenerator {
 
+    private static final int EXTENDS = 0;
+    private static final int IMPLEMENTS = 1;
+    private static final int COMPOSITION = 2;
+    private static final int AGGREGATION = 3;
+    private static final int DEPENDENCY = 4;
+
+    private static final String[] ARROWS = {" --|> ", " ..|> ", " *-- ", " o-- ", " --> "};
+    private static final String[] CYCLE_ARROWS = {" -[#red]-|> ", " .[#red].|> ", " *-[#red]- ", " o-[#red]- ", " -[#red]-> "};
+
     public static String generateDiagram(List<Square> squares) {
+        return generateDiagram(squares, null);
+    }
+
+    /**
+     * @param cycles cycle analysis of the snapshot the squares come from, or null to leave cycles unmarked
+     */
+    public static String generateDiagram(List<Square> squares, CycleAnalysis cycles) {
         StringBuilder puml = new StringBuilder();
         puml.append("@startuml\n");
         puml.append("skinparam backgroundColor #FEFEFE\n");
         puml.append("skinparam classAttributeIconSize 0\n");
         puml.append("left to right direction\n\n");
 
-        Set<String> classNames = new HashSet<>();
-        Map<String, Square> classMap = new HashMap<>();
+        // Squares of one snapshot share a symbol table, so relationships are compared by class ID
+        BitSet classIds = new BitSet();
         for (Square square : squares) {
-            String className = square.getName().replace(".java", "");
-            classNames.add(className);
-            classMap.put(className, square);
+            if (square.getClassId() >= 0) {
+                classIds.set(square.getClassId());
+            }
         }
 
         for (Square square : squares) {
-            String className = square.getName().replace(".java", "");
+            String className = square.getClassName();
+            String marker = cycles != null && cycles.isInCycle(square) ? " <<cycle>> #FFE0E0" : "";
 
             if (square.isInterface()) {
-                puml.append("interface ").append(className).append(" {\n");
+                puml.append("interface ").append(className).append(marker).append(" {\n");
             } else if (square.isAbstract()) {
-                puml.append("abstract class ").append(className).append(" {\n");
+                puml.append("abstract class ").append(className).append(marker).append(" {\n");
             } else {
-                puml.append("class ").append(className).append(" {\n");
+                puml.append("class ").append(className).append(marker).append(" {\n");
             }
 
             puml.append("  .. Metrics ..\n");
@@ -46,69 +64,69 @@ public class PlantUmlGenerator {
             puml.append("}\n\n");
         }
 
-        Set<String> addedRelationships = new HashSet<>();
+        Set<Long> addedRelationships = new HashSet<>();
 
         for (Square square : squares) {
-            String className = square.getName().replace(".java", "");
+            ClassSymbolTable symbols = square.getSymbols();
+            int classId = square.getClassId();
+            String className = square.getClassName();
+            int node = cycles != null ? cycles.nodeOf(square) : -1;
+            int component = node >= 0 && cycles.isInCycle(node) ? cycles.getComponent(node) : -1;
 
             // 1. Inheritance (extends) - highest priority
-            String extendsClass = square.getExtendsClass();
-            if (extendsClass != null && classNames.contains(extendsClass)) {
-                String key = className + "--|>" + extendsClass;
-                if (!addedRelationships.contains(key)) {
-                    puml.append(className).append(" --|> ").append(extendsClass).append("\n");
-                    addedRelationships.add(key);
+            int extendsId = square.getExtendsId();
+            if (extendsId >= 0 && classIds.get(extendsId)) {
+                if (addedRelationships.add(relationship(EXTENDS, classId, extendsId))) {
+                    puml.append(className).append(arrow(EXTENDS, classId, component, extendsId, cycles)).append(symbols.name(extendsId)).append("\n");
                 }
             }
 
             // 2. Interface implementation (implements)
-            for (String interfaceName : square.getImplementsInterfaces()) {
-                if (classNames.contains(interfaceName)) {
-                    String key = className + "..|>" + interfaceName;
-                    if (!addedRelationships.contains(key)) {
-                        puml.append(className).append(" ..|> ").append(interfaceName).append("\n");
-                        addedRelationships.add(key);
+            for (int interfaceId : square.getImplementsIds()) {
+                if (classIds.get(interfaceId)) {
+                    if (addedRelationships.add(relationship(IMPLEMENTS, classId, interfaceId))) {
+                        puml.append(className).append(arrow(IMPLEMENTS, classId, component, interfaceId, cycles)).append(symbols.name(interfaceId)).append("\n");
                     }
                 }
             }
 
-            Set<String> alreadyShown = new HashSet<>();
-            if (extendsClass != null) alreadyShown.add(extendsClass);
-            alreadyShown.addAll(square.getImplementsInterfaces());
+            BitSet alreadyShown = new BitSet();
+            if (extendsId >= 0) alreadyShown.set(extendsId);
+            for (int interfaceId : square.getImplementsIds()) {
+                alreadyShown.set(interfaceId);
+            }
 
             // 3. Composition (*--) - field declarations (non-collection)
-            for (String compositionType : square.getCompositionDependencies()) {
-                if (classNames.contains(compositionType) && !alreadyShown.contains(compositionType)) {
-                    String key = className + "*--" + compositionType;
-                    String reverseKey = compositionType + "*--" + className;
+            for (int compositionId : square.getCompositionIds()) {
+                if (classIds.get(compositionId) && !alreadyShown.get(compositionId)) {
+                    long key = relationship(COMPOSITION, classId, compositionId);
+                    long reverseKey = relationship(COMPOSITION, compositionId, classId);
                     if (!addedRelationships.contains(key) && !addedRelationships.contains(reverseKey)) {
-                        puml.append(className).append(" *-- ").append(compositionType).append("\n");
+                        puml.append(className).append(arrow(COMPOSITION, classId, component, compositionId, cycles)).append(symbols.name(compositionId)).append("\n");
                         addedRelationships.add(key);
-                        alreadyShown.add(compositionType);
+                        alreadyShown.set(compositionId);
                     }
                 }
             }
 
             // 4. Aggregation (o--) - collection fields or self-references
-            for (String aggregationType : square.getAggregationDependencies()) {
-                if (classNames.contains(aggregationType) && !alreadyShown.contains(aggregationType)) {
-                    String key = className + "o--" + aggregationType;
-                    String reverseKey = aggregationType + "o--" + className;
+            for (int aggregationId : square.getAggregationIds()) {
+                if (classIds.get(aggregationId) && !alreadyShown.get(aggregationId)) {
+                    long key = relationship(AGGREGATION, classId, aggregationId);
+                    long reverseKey = relationship(AGGREGATION, aggregationId, classId);
                     if (!addedRelationships.contains(key) && !addedRelationships.contains(reverseKey)) {
-                        puml.append(className).append(" o-- ").append(aggregationType).append("\n");
+                        puml.append(className).append(arrow(AGGREGATION, classId, component, aggregationId, cycles)).append(symbols.name(aggregationId)).append("\n");
                         addedRelationships.add(key);
-                        alreadyShown.add(aggregationType);
+                        alreadyShown.set(aggregationId);
                     }
                 }
             }
 
             // 5. General dependencies (-->) - uses relationships
-            for (String dependency : square.getEfferentDependencies()) {
-                if (classNames.contains(dependency) && !alreadyShown.contains(dependency)) {
-                    String key = className + "-->" + dependency;
-                    if (!addedRelationships.contains(key)) {
-                        puml.append(className).append(" --> ").append(dependency).append("\n");
-                        addedRelationships.add(key);
+            for (int dependencyId : square.getEfferentIds()) {
+                if (classIds.get(dependencyId) && !alreadyShown.get(dependencyId)) {
+                    if (addedRelationships.add(relationship(DEPENDENCY, classId, dependencyId))) {
+                        puml.append(className).append(arrow(DEPENDENCY, classId, component, dependencyId, cycles)).append(symbols.name(dependencyId)).append("\n");
                     }
                 }
             }
@@ -117,4 +135,14 @@ public class PlantUmlGenerator {
         puml.append("\n@enduml\n");
         return puml.toString();
     }
-}
\ No newline at end of file
+
+    // A relationship is part of a cycle when both ends are in the same strongly connected component
+    private static String arrow(int kind, int from, int component, int to, CycleAnalysis cycles) {
+        boolean inCycle = component >= 0 && from != to && cycles.componentOfClass(to) == component;
+        return inCycle ? CYCLE_ARROWS[kind] : ARROWS[kind];
+    }
+
+    private static long relationship(int kind, int from, int to) {
+        return ((long) kind << 58) | ((long) from << 29) | to;
+    }
+}
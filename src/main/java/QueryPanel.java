@@ -0,0 +1,143 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+/**
+ * QueryPanel class to find classes by their metrics, such as the most complex classes or the
+ * ones far from the main sequence. Queries run against the {@link MetricStore} of the current
+ * snapshot; double-clicking a result selects its folder and file.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.1
+ */
+public class QueryPanel extends JPanel implements PropertyChangeListener {
+
+    private static final String DEFAULT_QUERY = "sort:-complexity limit:100";
+    private static final String[] COLUMNS = {"Name", "Folder", "Lines", "Complexity", "Ca", "Ce",
+            "Instability", "Abstractness", "Distance"};
+    private static final MetricStore.Metric[] COLUMN_METRICS = {null, null,
+            MetricStore.Metric.LINES, MetricStore.Metric.COMPLEXITY, MetricStore.Metric.AFFERENT,
+            MetricStore.Metric.EFFERENT, MetricStore.Metric.INSTABILITY, MetricStore.Metric.ABSTRACTNESS,
+            MetricStore.Metric.DISTANCE};
+
+    private final JTextField queryField = new JTextField(DEFAULT_QUERY);
+    private final JLabel resultLabel = new JLabel(" ");
+    private final ResultModel resultModel = new ResultModel();
+
+    public QueryPanel() {
+        setLayout(new BorderLayout());
+
+        queryField.setToolTipText("<html>Conditions: lines, complexity, ca, ce, instability, abstractness, distance"
+                + " with &lt; &lt;= &gt; &gt;= =<br>Options: folder:path sort:-metric sort:+metric limit:n"
+                + "<br>Example: complexity&gt;20 distance&gt;=0.5 sort:-lines limit:50</html>");
+        queryField.addActionListener(e -> runQuery());
+        JButton runButton = new JButton("Run");
+        runButton.addActionListener(e -> runQuery());
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(new JLabel(" Query: "), BorderLayout.WEST);
+        top.add(queryField, BorderLayout.CENTER);
+        top.add(runButton, BorderLayout.EAST);
+
+        JTable table = new JTable(resultModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && table.getSelectedRow() >= 0) {
+                    Square square = resultModel.getSquare(table.getSelectedRow());
+                    Blackboard.getInstance().setSelectedFolderPath(
+                            Blackboard.getInstance().getFolderFromPath(square.getPath()));
+                    Blackboard.getInstance().setSelectedFile(square);
+                }
+            }
+        });
+
+        JPanel bottom = new JPanel(new BorderLayout());
+        bottom.add(resultLabel, BorderLayout.WEST);
+
+        add(top, BorderLayout.NORTH);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        add(bottom, BorderLayout.SOUTH);
+
+        Blackboard.getInstance().addPropertyChangeListener(this);
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (evt.getPropertyName().equals("blackboardReady")) {
+            runQuery();
+        } else if (evt.getPropertyName().equals("blackboardCleared")) {
+            resultModel.setRows(null, new int[0]);
+            resultLabel.setText(" ");
+        }
+    }
+
+    private void runQuery() {
+        MetricStore.Query query;
+        try {
+            query = MetricStore.Query.parse(queryField.getText());
+        } catch (IllegalArgumentException e) {
+            resultLabel.setText(" " + e.getMessage());
+            return;
+        }
+
+        MetricStore store = Blackboard.getInstance().getSnapshot().getMetricStore();
+        long start = System.nanoTime();
+        int[] rows = store.query(query);
+        long micros = (System.nanoTime() - start) / 1000;
+        resultModel.setRows(store, rows);
+        resultLabel.setText(String.format(" %d of %d classes in %.1f ms", rows.length, store.size(), micros / 1000.0));
+    }
+
+    /**
+     * Table over the matching rows of a store; cells are read from its columns when painted.
+     */
+    private static final class ResultModel extends AbstractTableModel {
+
+        private MetricStore store;
+        private int[] rows = new int[0];
+
+        void setRows(MetricStore store, int[] rows) {
+            this.store = store;
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        Square getSquare(int index) {
+            return store.getSquare(rows[index]);
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.length;
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int index, int column) {
+            Square square = store.getSquare(rows[index]);
+            if (column == 0) {
+                return square.getName();
+            } else if (column == 1) {
+                return BlackboardSnapshot.folderOf(square.getPath());
+            }
+            double value = store.getValue(COLUMN_METRICS[column], rows[index]);
+            return column < 6 ? String.valueOf((int) value) : String.format("%.2f", value);
+        }
+    }
+}
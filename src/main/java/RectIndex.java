@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Static spatial index over axis-aligned rectangles: a packed R-tree built with
+ * sort-tile-recursive grouping. Each node holds up to {@value #NODE_CAPACITY} children and
+ * the bounding box of all of them, stored level by level in flat arrays. Finding the
+ * rectangle under a point or every rectangle in a region only descends into nodes whose
+ * box matches, so a lookup among rectangles that do not overlap costs O(log n).
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class RectIndex {
+
+    private static final int NODE_CAPACITY = 16;
+
+    // Entry i of level 0 is rectangle items[i]; entry i of level L + 1 covers entries
+    // [i * NODE_CAPACITY, (i + 1) * NODE_CAPACITY) of level L
+    private final int[] items;
+    private final int[] levelOffsets;
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+
+    private RectIndex(int[] items, int[] levelOffsets, double[] minX, double[] minY, double[] maxX, double[] maxY) {
+        this.items = items;
+        this.levelOffsets = levelOffsets;
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Indexes rectangle i given by x[i], y[i], width[i] and height[i], for i below count.
+     */
+    public static RectIndex build(double[] x, double[] y, double[] width, double[] height, int count) {
+        // Sort-tile-recursive: vertical slices by center x, each sorted by center y
+        int[] items = sortedByKey(count, i -> x[i] + width[i] / 2);
+        int leaves = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int slices = (int) Math.ceil(Math.sqrt(leaves));
+        int sliceSize = slices * NODE_CAPACITY;
+        for (int start = 0; start < count; start += sliceSize) {
+            int end = Math.min(count, start + sliceSize);
+            int[] slice = Arrays.copyOfRange(items, start, end);
+            int[] byY = sortedByKey(slice.length, i -> y[slice[i]] + height[slice[i]] / 2);
+            for (int i = 0; i < byY.length; i++) {
+                items[start + i] = slice[byY[i]];
+            }
+        }
+
+        int levels = 1;
+        int total = count;
+        for (int size = count; size > 1; size = (size + NODE_CAPACITY - 1) / NODE_CAPACITY) {
+            total += (size + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            levels++;
+        }
+        int[] levelOffsets = new int[levels + 1];
+        double[] minX = new double[total];
+        double[] minY = new double[total];
+        double[] maxX = new double[total];
+        double[] maxY = new double[total];
+        for (int i = 0; i < count; i++) {
+            int item = items[i];
+            minX[i] = x[item];
+            minY[i] = y[item];
+            maxX[i] = x[item] + width[item];
+            maxY[i] = y[item] + height[item];
+        }
+        levelOffsets[1] = count;
+
+        // Each level groups runs of the level below, which the slicing keeps close together
+        for (int level = 1; level < levels; level++) {
+            int childStart = levelOffsets[level - 1];
+            int childEnd = levelOffsets[level];
+            int node = childEnd;
+            for (int child = childStart; child < childEnd; child += NODE_CAPACITY, node++) {
+                minX[node] = minY[node] = Double.POSITIVE_INFINITY;
+                maxX[node] = maxY[node] = Double.NEGATIVE_INFINITY;
+                for (int c = child; c < Math.min(childEnd, child + NODE_CAPACITY); c++) {
+                    minX[node] = Math.min(minX[node], minX[c]);
+                    minY[node] = Math.min(minY[node], minY[c]);
+                    maxX[node] = Math.max(maxX[node], maxX[c]);
+                    maxY[node] = Math.max(maxY[node], maxY[c]);
+                }
+            }
+            levelOffsets[level + 1] = node;
+        }
+        return new RectIndex(items, levelOffsets, minX, minY, maxX, maxY);
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Returns a rectangle containing the point, or -1 if there is none. Points on the shared
+     * edge of two rectangles belong to the one starting there.
+     */
+    public int find(double px, double py) {
+        if (items.length == 0) {
+            return -1;
+        }
+        return find(levelOffsets.length - 2, 0, px, py);
+    }
+
+    private int find(int level, int entry, double px, double py) {
+        int node = levelOffsets[level] + entry;
+        if (px < minX[node] || px >= maxX[node] || py < minY[node] || py >= maxY[node]) {
+            return -1;
+        }
+        if (level == 0) {
+            return items[entry];
+        }
+        int firstChild = entry * NODE_CAPACITY;
+        int lastChild = Math.min(levelOffsets[level] - levelOffsets[level - 1], firstChild + NODE_CAPACITY);
+        for (int child = firstChild; child < lastChild; child++) {
+            int found = find(level - 1, child, px, py);
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Passes every rectangle that overlaps the given region to the consumer.
+     */
+    public void query(double x, double y, double width, double height, IntConsumer consumer) {
+        if (items.length > 0) {
+            query(levelOffsets.length - 2, 0, x, y, x + width, y + height, consumer);
+        }
+    }
+
+    private void query(int level, int entry, double x0, double y0, double x1, double y1, IntConsumer consumer) {
+        int node = levelOffsets[level] + entry;
+        if (maxX[node] <= x0 || minX[node] >= x1 || maxY[node] <= y0 || minY[node] >= y1) {
+            return;
+        }
+        if (level == 0) {
+            consumer.accept(items[entry]);
+            return;
+        }
+        int firstChild = entry * NODE_CAPACITY;
+        int lastChild = Math.min(levelOffsets[level] - levelOffsets[level - 1], firstChild + NODE_CAPACITY);
+        for (int child = firstChild; child < lastChild; child++) {
+            query(level - 1, child, x0, y0, x1, y1, consumer);
+        }
+    }
+
+    private interface Key {
+        double of(int i);
+    }
+
+    /**
+     * Indexes 0..count-1 ordered by key, sorted as primitive longs: the order-preserving bits
+     * of the key as a float above the index.
+     */
+    private static int[] sortedByKey(int count, Key key) {
+        long[] packed = new long[count];
+        for (int i = 0; i < count; i++) {
+            int bits = Float.floatToIntBits((float) key.of(i));
+            bits ^= (bits >> 31) & 0x7FFFFFFF;
+            packed[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(packed);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = (int) packed[i];
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,344 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nested squarified treemap of a whole repository: every folder gets a tile whose area is
+ * proportional to the lines of code below it, and its subfolders and files share that tile.
+ * Subtree sums of lines, complexity and file count are kept per folder, so a folder too small
+ * to show its contents can be drawn as one aggregated tile.
+ *
+ * <p>Nodes 0 to {@link #folderCount()} - 1 are folders, with the root at 0 and every folder
+ * after its parent; the node of the i-th square follows them. Geometry is in world units,
+ * laid out once in a {@value #WORLD_WIDTH} by {@value #WORLD_HEIGHT} rectangle.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class RepositoryMap {
+
+    public static final double WORLD_WIDTH = 1600;
+    public static final double WORLD_HEIGHT = 1000;
+
+    // Folders with more children than this look them up through a spatial index
+    private static final int INDEXED_CHILDREN = 64;
+
+    /**
+     * Receives the nodes a traversal reaches, parents before their children.
+     */
+    public interface Visitor {
+
+        void file(int node, double x, double y, double width, double height);
+
+        /**
+         * A folder that is too small to open, drawn as one tile for its whole subtree.
+         */
+        void collapsedFolder(int node, double x, double y, double width, double height);
+
+        /**
+         * A folder whose children are visited next; skipped files leave it showing through.
+         */
+        void openFolder(int node, double x, double y, double width, double height);
+
+        /**
+         * The end of an open folder, after its children.
+         */
+        void closeFolder(int node, double x, double y, double width, double height);
+    }
+
+    private final List<Square> squares;
+    private final String[] folderPaths;
+    private final int[] parent;
+    private final int[] childOffsets;
+    private final int[] children;
+    private final int[] firstFile;
+    private final double[] directFileArea;
+    private final long[] lines;
+    private final long[] complexity;
+    private final int[] fileCounts;
+    private final int[] folderMaxLines;
+    private final double[] x;
+    private final double[] y;
+    private final double[] width;
+    private final double[] height;
+    private final RectIndex[] childIndex;
+
+    private RepositoryMap(List<Square> squares) {
+        this.squares = squares;
+        int fileCount = squares.size();
+
+        // Folders of every file and all of their ancestors, each after its parent
+        Map<String, Integer> folderIds = new HashMap<>();
+        List<String> paths = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        folderIds.put("", 0);
+        paths.add("");
+        parents.add(-1);
+        int[] folderOfFile = new int[fileCount];
+        for (int i = 0; i < fileCount; i++) {
+            folderOfFile[i] = folderId(BlackboardSnapshot.folderOf(squares.get(i).getPath()), folderIds, paths, parents);
+        }
+        int folders = paths.size();
+        int nodes = folders + fileCount;
+        folderPaths = paths.toArray(new String[0]);
+        parent = new int[nodes];
+        for (int f = 0; f < folders; f++) {
+            parent[f] = parents.get(f);
+        }
+        for (int i = 0; i < fileCount; i++) {
+            parent[folders + i] = folderOfFile[i];
+        }
+
+        // Children of each folder in compressed-sparse-row form
+        childOffsets = new int[folders + 1];
+        for (int node = 1; node < nodes; node++) {
+            childOffsets[parent[node] + 1]++;
+        }
+        for (int f = 0; f < folders; f++) {
+            childOffsets[f + 1] += childOffsets[f];
+        }
+        children = new int[nodes - 1];
+        int[] cursor = new int[folders];
+        System.arraycopy(childOffsets, 0, cursor, 0, folders);
+        firstFile = new int[folders];
+        System.arraycopy(childOffsets, 1, firstFile, 0, folders);
+        for (int node = 1; node < nodes; node++) {
+            // Nodes go in ascending order, so each folder lists its subfolders before its files
+            if (node == folders) {
+                System.arraycopy(cursor, 0, firstFile, 0, folders);
+            }
+            children[cursor[parent[node]]++] = node;
+        }
+
+        // Subtree sums, children before parents
+        lines = new long[nodes];
+        complexity = new long[nodes];
+        fileCounts = new int[nodes];
+        folderMaxLines = new int[folders];
+        double[] weight = new double[nodes];
+        for (int i = 0; i < fileCount; i++) {
+            Square square = squares.get(i);
+            int node = folders + i;
+            lines[node] = square.getLinesOfCode();
+            complexity[node] = square.getComplexity();
+            fileCounts[node] = 1;
+            weight[node] = TreemapLayout.weightOf(square);
+            folderMaxLines[folderOfFile[i]] = Math.max(folderMaxLines[folderOfFile[i]], square.getLinesOfCode());
+        }
+        for (int node = nodes - 1; node > 0; node--) {
+            int p = parent[node];
+            lines[p] += lines[node];
+            complexity[p] += complexity[node];
+            fileCounts[p] += fileCounts[node];
+            weight[p] += weight[node];
+        }
+
+        // Layout, parents before children
+        x = new double[nodes];
+        y = new double[nodes];
+        width = new double[nodes];
+        height = new double[nodes];
+        childIndex = new RectIndex[folders];
+        directFileArea = new double[folders];
+        if (fileCount > 0) {
+            width[0] = WORLD_WIDTH;
+            height[0] = WORLD_HEIGHT;
+        }
+        for (int f = 0; f < folders; f++) {
+            int[] items = new int[childOffsets[f + 1] - childOffsets[f]];
+            System.arraycopy(children, childOffsets[f], items, 0, items.length);
+            TreemapLayout.squarify(weight, items, x[f], y[f], width[f], height[f], x, y, width, height);
+            for (int c = firstFile[f]; c < childOffsets[f + 1]; c++) {
+                directFileArea[f] += width[children[c]] * height[children[c]];
+            }
+            if (items.length > INDEXED_CHILDREN) {
+                double[] cx = new double[items.length];
+                double[] cy = new double[items.length];
+                double[] cw = new double[items.length];
+                double[] ch = new double[items.length];
+                for (int i = 0; i < items.length; i++) {
+                    cx[i] = x[items[i]];
+                    cy[i] = y[items[i]];
+                    cw[i] = width[items[i]];
+                    ch[i] = height[items[i]];
+                }
+                childIndex[f] = RectIndex.build(cx, cy, cw, ch, items.length);
+            }
+        }
+    }
+
+    public static RepositoryMap build(List<Square> squares) {
+        return new RepositoryMap(squares);
+    }
+
+    private static int folderId(String path, Map<String, Integer> folderIds, List<String> paths, List<Integer> parents) {
+        Integer id = folderIds.get(path);
+        if (id != null) {
+            return id;
+        }
+        int parentId = folderId(BlackboardSnapshot.folderOf(path), folderIds, paths, parents);
+        id = paths.size();
+        folderIds.put(path, id);
+        paths.add(path);
+        parents.add(parentId);
+        return id;
+    }
+
+    public List<Square> getSquares() {
+        return squares;
+    }
+
+    public int folderCount() {
+        return folderPaths.length;
+    }
+
+    public int nodeCount() {
+        return parent.length;
+    }
+
+    public boolean isFolder(int node) {
+        return node < folderPaths.length;
+    }
+
+    public String getFolderPath(int node) {
+        return folderPaths[node];
+    }
+
+    public Square getSquare(int node) {
+        return squares.get(node - folderPaths.length);
+    }
+
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public long getLines(int node) {
+        return lines[node];
+    }
+
+    public long getComplexity(int node) {
+        return complexity[node];
+    }
+
+    public int getFileCount(int node) {
+        return fileCounts[node];
+    }
+
+    /**
+     * Longest file directly in the folder of a file node, which its color is relative to.
+     */
+    public int getFolderMaxLines(int fileNode) {
+        return folderMaxLines[parent[fileNode]];
+    }
+
+    public double getX(int node) {
+        return x[node];
+    }
+
+    public double getY(int node) {
+        return y[node];
+    }
+
+    public double getWidth(int node) {
+        return width[node];
+    }
+
+    public double getHeight(int node) {
+        return height[node];
+    }
+
+    /**
+     * Visits the nodes overlapping a region of the world. Folders narrower than minFolderSize
+     * are reported collapsed and their subtrees skipped; files narrower than minFileSize are
+     * skipped, all of a folder's files at once when they average below that size. The number
+     * of nodes visited therefore depends on what is visible, not on the size of the repository.
+     */
+    public void visit(double left, double top, double right, double bottom, double minFolderSize, double minFileSize,
+                      Visitor visitor) {
+        if (!squares.isEmpty()) {
+            visitFolder(0, left, top, right, bottom, minFolderSize, minFileSize, visitor);
+        }
+    }
+
+    private void visitFolder(int folder, double left, double top, double right, double bottom, double minFolderSize,
+                             double minFileSize, Visitor visitor) {
+        if (Math.min(width[folder], height[folder]) < minFolderSize) {
+            visitor.collapsedFolder(folder, x[folder], y[folder], width[folder], height[folder]);
+            return;
+        }
+        visitor.openFolder(folder, x[folder], y[folder], width[folder], height[folder]);
+        boolean filesShown = filesShown(folder, minFileSize);
+        RectIndex index = childIndex[folder];
+        if (index != null && filesShown) {
+            int offset = childOffsets[folder];
+            index.query(left, top, right - left, bottom - top, item -> visitChild(children[offset + item],
+                    left, top, right, bottom, minFolderSize, minFileSize, visitor));
+        } else {
+            // Subfolders come before files, so hidden files are never looked at
+            int end = filesShown ? childOffsets[folder + 1] : firstFile[folder];
+            for (int c = childOffsets[folder]; c < end; c++) {
+                int child = children[c];
+                if (overlaps(child, left, top, right, bottom)) {
+                    visitChild(child, left, top, right, bottom, minFolderSize, minFileSize, visitor);
+                }
+            }
+        }
+        visitor.closeFolder(folder, x[folder], y[folder], width[folder], height[folder]);
+    }
+
+    private void visitChild(int node, double left, double top, double right, double bottom, double minFolderSize,
+                            double minFileSize, Visitor visitor) {
+        if (isFolder(node)) {
+            visitFolder(node, left, top, right, bottom, minFolderSize, minFileSize, visitor);
+        } else if (Math.min(width[node], height[node]) >= minFileSize) {
+            visitor.file(node, x[node], y[node], width[node], height[node]);
+        }
+    }
+
+    private boolean filesShown(int folder, double minFileSize) {
+        int files = childOffsets[folder + 1] - firstFile[folder];
+        return files > 0 && directFileArea[folder] / files >= minFileSize * minFileSize;
+    }
+
+    private boolean overlaps(int node, double left, double top, double right, double bottom) {
+        return x[node] < right && x[node] + width[node] > left && y[node] < bottom && y[node] + height[node] > top;
+    }
+
+    /**
+     * Returns the node drawn at a world point for the given minimum sizes: a file, the folder
+     * drawn in place of a file that is too small, or -1 outside the map.
+     */
+    public int nodeAt(double px, double py, double minFolderSize, double minFileSize) {
+        if (squares.isEmpty() || !contains(0, px, py)) {
+            return -1;
+        }
+        int node = 0;
+        while (isFolder(node) && Math.min(width[node], height[node]) >= minFolderSize) {
+            int next = -1;
+            RectIndex index = childIndex[node];
+            if (index != null) {
+                int item = index.find(px, py);
+                next = item >= 0 ? children[childOffsets[node] + item] : -1;
+            } else {
+                for (int c = childOffsets[node]; c < childOffsets[node + 1]; c++) {
+                    if (contains(children[c], px, py)) {
+                        next = children[c];
+                        break;
+                    }
+                }
+            }
+            if (next < 0 || (!isFolder(next) && (!filesShown(node, minFileSize)
+                    || Math.min(width[next], height[next]) < minFileSize))) {
+                return node;
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    private boolean contains(int node, double px, double py) {
+        return px >= x[node] && px < x[node] + width[node] && py >= y[node] && py < y[node] + height[node];
+    }
+}
@@ -0,0 +1,434 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RepositoryMapPanel class to show every file of the repository in one zoomable, pannable
+ * treemap. The wheel zooms around the pointer and dragging pans. Only nodes inside the
+ * viewport are drawn. Folders whose tile would be smaller than a few pixels are drawn as one
+ * tile shaded by their complexity per line, and files too small to see leave their folder's
+ * shade showing. Clicking a file or folder selects it;
+ * double-clicking a folder zooms into it.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.2
+ */
+public class RepositoryMapPanel extends JPanel implements PropertyChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryMapPanel.class);
+    private static final double MIN_FOLDER_PIXELS = 8;
+    private static final double MIN_FILE_PIXELS = 3;
+    private static final double MAX_ZOOM_FACTOR = 100_000;
+    private static final double WHEEL_ZOOM_STEP = 1.2;
+    private static final Color LARGE_COLOR = new Color(240, 140, 140);
+    private static final Color MEDIUM_COLOR = new Color(255, 245, 150);
+    private static final Color SMALL_COLOR = new Color(180, 240, 180);
+    private static final Color FOLDER_OUTLINE = new Color(60, 60, 60);
+    private static final Color[] FOLDER_SHADES = new Color[16];
+    private static final BasicStroke THIN_STROKE = new BasicStroke(1);
+    private static final BasicStroke SELECTED_STROKE = new BasicStroke(3);
+    private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 11);
+
+    static {
+        // Light to dark blue, for complexity per line from none to the densest folder's
+        for (int i = 0; i < FOLDER_SHADES.length; i++) {
+            double t = (double) i / (FOLDER_SHADES.length - 1);
+            FOLDER_SHADES[i] = new Color((int) (200 - 150 * t), (int) (220 - 140 * t), (int) (250 - 70 * t));
+        }
+    }
+
+    private final JPanel mapPanel;
+    private final JLabel zoomLabel = new JLabel(" ");
+    private RepositoryMap map;
+    private double maxDensity = 1;
+    private boolean building = false;
+
+    // Viewport: world point at the panel's top-left corner, and pixels per world unit
+    private double viewX;
+    private double viewY;
+    private double zoom;
+    private boolean fitted = false;
+    private Point dragStart;
+    private int hoveredNode = -1;
+
+    public RepositoryMapPanel() {
+        setLayout(new BorderLayout());
+
+        mapPanel = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                if (map != null && map.nodeCount() > 1) {
+                    drawMap((Graphics2D) g);
+                } else {
+                    drawMessage(g, building ? "Laying out repository..." : "Load a repository to see its map");
+                }
+            }
+        };
+        mapPanel.setBackground(Color.WHITE);
+
+        JButton fitButton = new JButton("Fit");
+        fitButton.addActionListener(e -> {
+            fitted = false;
+            mapPanel.repaint();
+        });
+        JPanel top = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        top.add(fitButton);
+        top.add(zoomLabel);
+        add(top, BorderLayout.NORTH);
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                dragStart = e.getPoint();
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (dragStart != null && map != null) {
+                    viewX -= (e.getX() - dragStart.x) / zoom;
+                    viewY -= (e.getY() - dragStart.y) / zoom;
+                    dragStart = e.getPoint();
+                    mapPanel.repaint();
+                }
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragStart = null;
+            }
+
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                handleMouseMove(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                handleMouseClick(e.getX(), e.getY(), e.getClickCount());
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoomAround(e.getX(), e.getY(), Math.pow(WHEEL_ZOOM_STEP, -e.getPreciseWheelRotation()));
+            }
+        };
+        mapPanel.addMouseListener(mouse);
+        mapPanel.addMouseMotionListener(mouse);
+        mapPanel.addMouseWheelListener(mouse);
+        add(mapPanel, BorderLayout.CENTER);
+
+        Blackboard.getInstance().addPropertyChangeListener(this);
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        if (evt.getPropertyName().equals("blackboardReady")) {
+            buildMap(Blackboard.getInstance().getSnapshot());
+        } else if (evt.getPropertyName().equals("blackboardCleared")) {
+            map = null;
+            hoveredNode = -1;
+            fitted = false;
+            mapPanel.setToolTipText(null);
+            zoomLabel.setText(" ");
+        } else if (!evt.getPropertyName().equals("selectedFolderPath")
+                && !evt.getPropertyName().equals("selectedFileName")) {
+            return;
+        }
+        mapPanel.repaint();
+    }
+
+    private void buildMap(BlackboardSnapshot snapshot) {
+        building = true;
+        new SwingWorker<RepositoryMap, Void>() {
+            @Override
+            protected RepositoryMap doInBackground() {
+                long start = System.nanoTime();
+                RepositoryMap built = RepositoryMap.build(snapshot.getSquares());
+                logger.info("Repository map: {} files in {} folders laid out in {} ms", snapshot.size(),
+                        built.folderCount(), (System.nanoTime() - start) / 1_000_000);
+                return built;
+            }
+
+            @Override
+            protected void done() {
+                building = false;
+                try {
+                    // A newer load may have been cleared or published meanwhile
+                    if (Blackboard.getInstance().getSnapshot() == snapshot) {
+                        setMap(get());
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to lay out repository map", e);
+                }
+                mapPanel.repaint();
+            }
+        }.execute();
+    }
+
+    private void setMap(RepositoryMap map) {
+        double densest = 0;
+        for (int folder = 0; folder < map.folderCount(); folder++) {
+            densest = Math.max(densest, density(map, folder));
+        }
+        this.map = map;
+        maxDensity = densest > 0 ? densest : 1;
+        hoveredNode = -1;
+        fitted = false;
+    }
+
+    private Color shadeOf(int folder) {
+        return FOLDER_SHADES[(int) Math.round(density(map, folder) / maxDensity * (FOLDER_SHADES.length - 1))];
+    }
+
+    private static double density(RepositoryMap map, int node) {
+        long lines = map.getLines(node);
+        return lines > 0 ? (double) map.getComplexity(node) / lines : 0;
+    }
+
+    /**
+     * Zoom at which the whole map fits the panel, the least the view can zoom out to.
+     */
+    private double fitZoom() {
+        return Math.min(mapPanel.getWidth() / RepositoryMap.WORLD_WIDTH, mapPanel.getHeight() / RepositoryMap.WORLD_HEIGHT);
+    }
+
+    private void fit() {
+        zoom = fitZoom();
+        viewX = (RepositoryMap.WORLD_WIDTH - mapPanel.getWidth() / zoom) / 2;
+        viewY = (RepositoryMap.WORLD_HEIGHT - mapPanel.getHeight() / zoom) / 2;
+        fitted = true;
+        updateZoomLabel();
+    }
+
+    private void updateZoomLabel() {
+        zoomLabel.setText(String.format("Zoom %.0f%%", zoom / fitZoom() * 100));
+    }
+
+    private void zoomAround(int px, int py, double factor) {
+        if (map == null) {
+            return;
+        }
+        double fitZoom = fitZoom();
+        double newZoom = Math.max(fitZoom, Math.min(fitZoom * MAX_ZOOM_FACTOR, zoom * factor));
+        // Keep the world point under the pointer where it is
+        double worldX = viewX + px / zoom;
+        double worldY = viewY + py / zoom;
+        zoom = newZoom;
+        viewX = worldX - px / zoom;
+        viewY = worldY - py / zoom;
+        hoveredNode = -1;
+        updateZoomLabel();
+        mapPanel.repaint();
+    }
+
+    private void zoomTo(int node) {
+        double width = map.getWidth(node);
+        double height = map.getHeight(node);
+        double fitZoom = fitZoom();
+        zoom = Math.max(fitZoom, Math.min(fitZoom * MAX_ZOOM_FACTOR,
+                Math.min(mapPanel.getWidth() / width, mapPanel.getHeight() / height)));
+        viewX = map.getX(node) + width / 2 - mapPanel.getWidth() / zoom / 2;
+        viewY = map.getY(node) + height / 2 - mapPanel.getHeight() / zoom / 2;
+        hoveredNode = -1;
+        updateZoomLabel();
+        mapPanel.repaint();
+    }
+
+    private void drawMap(Graphics2D g2d) {
+        if (!fitted) {
+            fit();
+        }
+        long start = System.nanoTime();
+        RepositoryMap current = map;
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, mapPanel.getWidth(), mapPanel.getHeight());
+        }
+        String selectedFolder = Blackboard.getInstance().getSelectedFolderPath();
+        String selectedFile = Blackboard.getInstance().getSelectedFileName();
+        int[] drawn = new int[1];
+        Rectangle[] selectedBounds = new Rectangle[1];
+        g2d.setFont(LABEL_FONT);
+        FontMetrics fm = g2d.getFontMetrics();
+
+        current.visit(viewX + clip.x / zoom, viewY + clip.y / zoom,
+                viewX + (clip.x + clip.width) / zoom, viewY + (clip.y + clip.height) / zoom,
+                MIN_FOLDER_PIXELS / zoom, MIN_FILE_PIXELS / zoom, new RepositoryMap.Visitor() {
+                    @Override
+                    public void file(int node, double x, double y, double width, double height) {
+                        Rectangle r = toScreen(x, y, width, height);
+                        Square square = current.getSquare(node);
+                        g2d.setColor(colorOf(square.getLinesOfCode(), current.getFolderMaxLines(node)));
+                        g2d.fillRect(r.x, r.y, r.width, r.height);
+                        if (r.width > 3 && r.height > 3) {
+                            g2d.setColor(Color.BLACK);
+                            g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+                        }
+                        if (r.height > fm.getHeight() + 2 && r.width > fm.stringWidth(square.getName()) + 6) {
+                            g2d.setColor(Color.BLACK);
+                            g2d.drawString(square.getName(), r.x + 3, r.y + fm.getAscent() + 1);
+                        }
+                        if (square.getName().equals(selectedFile)
+                                && BlackboardSnapshot.folderOf(square.getPath()).equals(selectedFolder)) {
+                            selectedBounds[0] = r;
+                        }
+                        drawn[0]++;
+                    }
+
+                    @Override
+                    public void collapsedFolder(int node, double x, double y, double width, double height) {
+                        Rectangle r = toScreen(x, y, width, height);
+                        g2d.setColor(shadeOf(node));
+                        g2d.fillRect(r.x, r.y, r.width, r.height);
+                        if (r.width > 3 && r.height > 3) {
+                            g2d.setColor(FOLDER_OUTLINE);
+                            g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+                        }
+                        folderSelected(node, r);
+                        drawn[0]++;
+                    }
+
+                    @Override
+                    public void openFolder(int node, double x, double y, double width, double height) {
+                        // Shows where files are too small to draw one by one
+                        Rectangle r = toScreen(x, y, width, height);
+                        g2d.setColor(shadeOf(node));
+                        g2d.fillRect(r.x, r.y, r.width, r.height);
+                    }
+
+                    @Override
+                    public void closeFolder(int node, double x, double y, double width, double height) {
+                        Rectangle r = toScreen(x, y, width, height);
+                        g2d.setColor(FOLDER_OUTLINE);
+                        g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+                        folderSelected(node, r);
+                        drawn[0]++;
+                    }
+
+                    private void folderSelected(int node, Rectangle r) {
+                        if (current.getFolderPath(node).equals(selectedFolder) && !selectedFolder.isEmpty()
+                                && selectedBounds[0] == null) {
+                            selectedBounds[0] = r;
+                        }
+                    }
+                });
+
+        if (selectedBounds[0] != null) {
+            Rectangle r = selectedBounds[0];
+            g2d.setColor(Color.BLUE);
+            g2d.setStroke(SELECTED_STROKE);
+            g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+            g2d.setStroke(THIN_STROKE);
+        }
+        if (hoveredNode >= 0) {
+            Rectangle r = toScreen(current.getX(hoveredNode), current.getY(hoveredNode),
+                    current.getWidth(hoveredNode), current.getHeight(hoveredNode));
+            g2d.setColor(Color.DARK_GRAY);
+            g2d.setStroke(SELECTED_STROKE);
+            g2d.drawRect(r.x, r.y, r.width - 1, r.height - 1);
+            g2d.setStroke(THIN_STROKE);
+        }
+
+        logger.debug("Drew {} map tiles in {} ms", drawn[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Screen rectangle of a world rectangle, with rounded edges so neighbours meet exactly.
+     * Coordinates are clamped just outside the panel, as very deep zooms overflow ints.
+     */
+    private Rectangle toScreen(double x, double y, double width, double height) {
+        double limit = 4.0 * Math.max(mapPanel.getWidth(), mapPanel.getHeight()) + 16;
+        int x0 = (int) Math.round(Math.max(-16, Math.min(limit, (x - viewX) * zoom)));
+        int y0 = (int) Math.round(Math.max(-16, Math.min(limit, (y - viewY) * zoom)));
+        int x1 = (int) Math.round(Math.max(-16, Math.min(limit, (x + width - viewX) * zoom)));
+        int y1 = (int) Math.round(Math.max(-16, Math.min(limit, (y + height - viewY) * zoom)));
+        return new Rectangle(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+    }
+
+    private static Color colorOf(int lines, int maxLines) {
+        double linePercentage = maxLines > 0 ? (double) lines / maxLines : 0.0;
+        if (linePercentage >= 2.0 / 3.0) {
+            return LARGE_COLOR;
+        } else if (linePercentage >= 1.0 / 3.0) {
+            return MEDIUM_COLOR;
+        }
+        return SMALL_COLOR;
+    }
+
+    private void drawMessage(Graphics g, String message) {
+        g.setColor(Color.GRAY);
+        g.setFont(new Font("Arial", Font.PLAIN, 14));
+        FontMetrics fm = g.getFontMetrics();
+        g.drawString(message, (mapPanel.getWidth() - fm.stringWidth(message)) / 2, mapPanel.getHeight() / 2);
+    }
+
+    private int nodeAt(int px, int py) {
+        if (map == null || !fitted) {
+            return -1;
+        }
+        return map.nodeAt(viewX + px / zoom, viewY + py / zoom, MIN_FOLDER_PIXELS / zoom, MIN_FILE_PIXELS / zoom);
+    }
+
+    private void handleMouseMove(int mouseX, int mouseY) {
+        int node = nodeAt(mouseX, mouseY);
+        if (node == hoveredNode) {
+            return;
+        }
+        // Only the old and new outlines change, so the rest of the map is not walked again
+        Rectangle dirty = hoveredNode >= 0 ? outlineBounds(hoveredNode) : null;
+        if (node >= 0) {
+            dirty = dirty != null ? dirty.union(outlineBounds(node)) : outlineBounds(node);
+        }
+        hoveredNode = node;
+        String tooltip = null;
+        if (node >= 0 && map.isFolder(node)) {
+            String path = map.getFolderPath(node);
+            tooltip = String.format("<html><b>%s</b><br>Files: %d<br>Lines: %d<br>Complexity: %d</html>",
+                    path.isEmpty() ? "(root)" : path, map.getFileCount(node), map.getLines(node),
+                    map.getComplexity(node));
+        } else if (node >= 0) {
+            Square square = map.getSquare(node);
+            tooltip = String.format("<html><b>%s</b><br>%s<br>Lines: %d<br>Complexity: %d</html>",
+                    square.getName(), BlackboardSnapshot.folderOf(square.getPath()),
+                    square.getLinesOfCode(), square.getComplexity());
+        }
+        mapPanel.setToolTipText(tooltip);
+        if (dirty != null) {
+            mapPanel.repaint(dirty);
+        }
+    }
+
+    /**
+     * Screen area of a node's hover outline, wide enough for the stroke drawn over its edge.
+     */
+    private Rectangle outlineBounds(int node) {
+        Rectangle bounds = toScreen(map.getX(node), map.getY(node), map.getWidth(node), map.getHeight(node));
+        bounds.grow(3, 3);
+        return bounds;
+    }
+
+    private void handleMouseClick(int mouseX, int mouseY, int clickCount) {
+        int node = nodeAt(mouseX, mouseY);
+        if (node < 0) {
+            return;
+        }
+        if (map.isFolder(node)) {
+            if (clickCount == 2) {
+                zoomTo(node);
+            }
+            Blackboard.getInstance().setSelectedFolderPath(map.getFolderPath(node));
+        } else {
+            Square square = map.getSquare(node);
+            Blackboard.getInstance().setSelectedFolderPath(BlackboardSnapshot.folderOf(square.getPath()));
+            Blackboard.getInstance().setSelectedFile(square);
+        }
+    }
+}
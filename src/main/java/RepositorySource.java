@@ -0,0 +1,98 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Source of repository files for the analysis, independent of where the files live.
+ * Paths are relative to the repository root and always use '/' as separator.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public interface RepositorySource extends Closeable {
+
+    /**
+     * Lists every file under the requested location.
+     */
+    List<String> listFiles() throws IOException;
+
+    /**
+     * Reads the content of a file returned by {@link #listFiles()}.
+     */
+    String readFile(String path) throws IOException;
+
+    /**
+     * Returns the git blob SHA of a file if it is known without reading the file, otherwise null.
+     */
+    default String getContentId(String path) {
+        return null;
+    }
+
+    /**
+     * Whether files are cheaper to read in one pass with {@link #forEachFile} than by random access.
+     */
+    default boolean isSequential() {
+        return false;
+    }
+
+    /**
+     * Hands every file accepted by the filter to the consumer. Sequential sources override this
+     * to read each file straight from the underlying stream.
+     */
+    default void forEachFile(Predicate<String> filter, FileConsumer consumer) throws Exception {
+        for (String path : listFiles()) {
+            if (filter.test(path)) {
+                consumer.accept(path, readFile(path));
+            }
+        }
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Receives the content of one file during {@link #forEachFile}.
+     */
+    @FunctionalInterface
+    interface FileConsumer {
+        void accept(String path, String content) throws Exception;
+    }
+
+    /**
+     * Picks the source for a location typed by the user: a local directory, a local or
+     * remote .zip/.tar.gz archive, or a GitHub folder URL.
+     */
+    static RepositorySource open(String location) throws IOException {
+        Path local = toLocalPath(location);
+        if (local != null && Files.isDirectory(local)) {
+            return new LocalRepositorySource(local);
+        }
+        if (local != null && Files.isRegularFile(local) && ArchiveRepositorySource.isArchive(location)) {
+            return new ArchiveRepositorySource(local, false);
+        }
+        if (ArchiveRepositorySource.isArchive(location)) {
+            return ArchiveRepositorySource.download(location);
+        }
+        return GitHubRepositorySource.fromUrl(location);
+    }
+
+    private static Path toLocalPath(String location) {
+        try {
+            if (location.startsWith("file:")) {
+                return Paths.get(java.net.URI.create(location));
+            }
+            if (location.contains("://")) {
+                return null;
+            }
+            return Paths.get(location);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of fetched source files, stored under the user's home directory.
+ * Entries are keyed by repository and blob SHA and kept in an {@link LruFileStore}, which
+ * caps their total size and does its file I/O outside its lock.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.2
+ */
+public class SourceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SourceCache.class);
+    private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    private static SourceCache instance;
+
+    private final LruFileStore store;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public SourceCache(Path root, long maxBytes) {
+        // One directory per repository, holding a file per blob
+        this.store = new LruFileStore(root, maxBytes, 2);
+        logger.info("Source cache at {} holds {} entries ({} bytes, cap {} bytes)",
+                root, store.size(), store.getTotalBytes(), maxBytes);
+    }
+
+    public static synchronized SourceCache getInstance() {
+        if (instance == null) {
+            Path root = Paths.get(System.getProperty("user.home"), ".githubviz", "cache", "sources");
+            instance = new SourceCache(root, DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    public String get(String repo, String sha) {
+        Path file = entryPath(repo, sha);
+        if (!store.contains(file)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try {
+            String content = new String(store.read(file), StandardCharsets.UTF_8);
+            hits.incrementAndGet();
+            return content;
+        } catch (IOException e) {
+            logger.warn("Dropping unreadable cache entry {}: {}", file, e.getMessage());
+            store.remove(file);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void put(String repo, String sha, String content) {
+        Path file = entryPath(repo, sha);
+        try {
+            store.write(file, content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Could not write cache entry {}: {}", file, e.getMessage());
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    public void resetStats() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public void logStats() {
+        logger.info("Source cache: {} hits, {} misses, {} entries ({} bytes)",
+                hits.get(), misses.get(), store.size(), store.getTotalBytes());
+    }
+
+    private Path entryPath(String repo, String sha) {
+        return store.getRoot().resolve(repo.replaceAll("[^A-Za-z0-9._-]", "_")).resolve(sha);
+    }
+}
@@ -1,44 +1,68 @@
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
  * This class represents a square with a file path, number of lines of code, and complexity.
+ * A square is filled in while its file is analyzed and never changed once it has been added
+ * to the blackboard; edge updates after that produce a copy.
+ *
+ * <p>Related classes are stored as sorted arrays of IDs from the run's {@link ClassSymbolTable},
+ * which every square of the same analysis shares. The String getters are read-only views.
  *
  * @author Aiden Rodriguez - GH Aiden-Rodriguez
  * @author Brandon Powell - GH Bpowell5184
- * @version 1.4
+ * @version 1.7
  */
 public class Square {
 
+    private static final int[] NONE = new int[0];
+
     private String path;
     private int lines;
     private int complexity;
     private boolean isAbstract;
     private boolean isInterface;
 
-    private String extendsClass;
-    private Set<String> implementsInterfaces;
+    private ClassSymbolTable symbols;
+    private int classId;
+    private int extendsId = -1;
+    private int[] implementsIds = NONE;
 
     // Composition and Aggregation
-    private Set<String> compositionDependencies;
-    private Set<String> aggregationDependencies;
+    private int[] compositionIds = NONE;
+    private int[] aggregationIds = NONE;
 
     // General dependencies
-    private Set<String> efferentDependencies;
-    private Set<String> afferentDependencies;
+    private int[] efferentIds = NONE;
+    private int[] afferentIds = NONE;
 
-    public Square(String path, int lines, int complexity) {
+    public Square(String path, int lines, int complexity, ClassSymbolTable symbols) {
         this.path = path;
         this.lines = lines;
         this.complexity = complexity;
         this.isAbstract = false;
         this.isInterface = false;
-        this.extendsClass = null;
-        this.implementsInterfaces = new HashSet<>();
-        this.compositionDependencies = new HashSet<>();
-        this.aggregationDependencies = new HashSet<>();
-        this.efferentDependencies = new HashSet<>();
-        this.afferentDependencies = new HashSet<>();
+        this.symbols = symbols;
+        this.classId = symbols.idOf(getName().replace(".java", ""));
+    }
+
+    private Square(Square other) {
+        this.path = other.path;
+        this.lines = other.lines;
+        this.complexity = other.complexity;
+        this.isAbstract = other.isAbstract;
+        this.isInterface = other.isInterface;
+        this.symbols = other.symbols;
+        this.classId = other.classId;
+        this.extendsId = other.extendsId;
+        this.implementsIds = other.implementsIds;
+        this.compositionIds = other.compositionIds;
+        this.aggregationIds = other.aggregationIds;
+        this.efferentIds = other.efferentIds;
+        this.afferentIds = other.afferentIds;
     }
 
     public int getLinesOfCode() {
@@ -53,10 +77,25 @@ public class Square {
         return path.substring(path.lastIndexOf("/") + 1);
     }
 
+    public String getClassName() {
+        return classId >= 0 ? symbols.name(classId) : getName().replace(".java", "");
+    }
+
     public String getPath() {
         return path;
     }
 
+    public ClassSymbolTable getSymbols() {
+        return symbols;
+    }
+
+    /**
+     * The ID of this square's class in {@link #getSymbols()}, or -1 if it is not in the table.
+     */
+    public int getClassId() {
+        return classId;
+    }
+
     public boolean isAbstract() {
         return isAbstract;
     }
@@ -74,58 +113,213 @@ public class Square {
     }
 
     public String getExtendsClass() {
-        return extendsClass;
+        return extendsId >= 0 ? symbols.name(extendsId) : null;
+    }
+
+    public int getExtendsId() {
+        return extendsId;
     }
 
     public void setExtendsClass(String extendsClass) {
-        this.extendsClass = extendsClass;
+        this.extendsId = extendsClass != null ? idOf(extendsClass) : -1;
     }
 
     public Set<String> getImplementsInterfaces() {
-        return implementsInterfaces;
+        return new NameView(symbols, implementsIds);
     }
 
     public void addImplementsInterface(String interfaceName) {
-        implementsInterfaces.add(interfaceName);
+        implementsIds = insert(implementsIds, idOf(interfaceName));
     }
 
     public Set<String> getCompositionDependencies() {
-        return compositionDependencies;
+        return new NameView(symbols, compositionIds);
     }
 
     public void addCompositionDependency(String className) {
-        compositionDependencies.add(className);
+        compositionIds = insert(compositionIds, idOf(className));
     }
 
     public Set<String> getAggregationDependencies() {
-        return aggregationDependencies;
+        return new NameView(symbols, aggregationIds);
     }
 
     public void addAggregationDependency(String className) {
-        aggregationDependencies.add(className);
+        aggregationIds = insert(aggregationIds, idOf(className));
     }
 
     public Set<String> getEfferentDependencies() {
-        return efferentDependencies;
+        return new NameView(symbols, efferentIds);
     }
 
     public void addEfferentDependency(String className) {
-        efferentDependencies.add(className);
+        addEfferentDependency(idOf(className));
+    }
+
+    public void addEfferentDependency(int classId) {
+        efferentIds = insert(efferentIds, classId);
     }
 
     public Set<String> getAfferentDependencies() {
-        return afferentDependencies;
+        return new NameView(symbols, afferentIds);
+    }
+
+    // The ID arrays are sorted, free of duplicates and shared; callers must not modify them
+
+    public int[] getImplementsIds() {
+        return implementsIds;
+    }
+
+    public int[] getCompositionIds() {
+        return compositionIds;
+    }
+
+    public int[] getAggregationIds() {
+        return aggregationIds;
+    }
+
+    public int[] getEfferentIds() {
+        return efferentIds;
+    }
+
+    public int[] getAfferentIds() {
+        return afferentIds;
+    }
+
+    /**
+     * Returns a copy of this square with the given incoming edges; this square is unchanged.
+     *
+     * @param classIds sorted IDs without duplicates, from this square's symbol table
+     */
+    public Square withAfferentDependencies(int[] classIds) {
+        Square copy = new Square(this);
+        copy.afferentIds = classIds.length == 0 ? NONE : classIds;
+        return copy;
     }
 
-    public void addAfferentDependency(String className) {
-        afferentDependencies.add(className);
+    /**
+     * Returns this square expressed in another symbol table. References to classes that the
+     * table does not contain are dropped. Returns this square if the table is the same.
+     */
+    public Square withSymbols(ClassSymbolTable table) {
+        if (table == symbols) {
+            return this;
+        }
+        Square copy = new Square(this);
+        copy.symbols = table;
+        copy.classId = table.idOf(getClassName());
+        copy.extendsId = extendsId >= 0 ? table.idOf(symbols.name(extendsId)) : -1;
+        copy.implementsIds = remap(implementsIds, table);
+        copy.compositionIds = remap(compositionIds, table);
+        copy.aggregationIds = remap(aggregationIds, table);
+        copy.efferentIds = remap(efferentIds, table);
+        copy.afferentIds = remap(afferentIds, table);
+        return copy;
     }
 
     public int getEfferentCoupling() {
-        return efferentDependencies.size();
+        return efferentIds.length;
     }
 
     public int getAfferentCoupling() {
-        return afferentDependencies.size();
+        return afferentIds.length;
+    }
+
+    public double getAbstractness() {
+        return isAbstract || isInterface ? 1.0 : 0.0;
+    }
+
+    public double getInstability() {
+        int total = efferentIds.length + afferentIds.length;
+        return total > 0 ? (double) efferentIds.length / total : 0.0;
+    }
+
+    /**
+     * Distance from the main sequence, where abstractness plus instability is one.
+     */
+    public double getDistance() {
+        return Math.abs(getAbstractness() + getInstability() - 1.0);
+    }
+
+    private int idOf(String className) {
+        int id = symbols.idOf(className);
+        if (id < 0) {
+            throw new IllegalArgumentException("Not a project class: " + className);
+        }
+        return id;
+    }
+
+    private static int[] insert(int[] ids, int id) {
+        int position = Arrays.binarySearch(ids, id);
+        if (position >= 0) {
+            return ids;
+        }
+        position = -position - 1;
+        int[] grown = new int[ids.length + 1];
+        System.arraycopy(ids, 0, grown, 0, position);
+        grown[position] = id;
+        System.arraycopy(ids, position, grown, position + 1, ids.length - position);
+        return grown;
+    }
+
+    private int[] remap(int[] ids, ClassSymbolTable table) {
+        int[] mapped = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            int newId = table.idOf(symbols.name(id));
+            if (newId >= 0) {
+                mapped[count++] = newId;
+            }
+        }
+        // Both tables are ordered by name, so the mapped IDs are still sorted
+        return count == 0 ? NONE : Arrays.copyOf(mapped, count);
+    }
+
+    /**
+     * Read-only set of class names over a sorted ID array.
+     */
+    private static final class NameView extends AbstractSet<String> {
+
+        private final ClassSymbolTable symbols;
+        private final int[] ids;
+
+        NameView(ClassSymbolTable symbols, int[] ids) {
+            this.symbols = symbols;
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String name)) {
+                return false;
+            }
+            int id = symbols.idOf(name);
+            return id >= 0 && Arrays.binarySearch(ids, id) >= 0;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < ids.length;
+                }
+
+                @Override
+                public String next() {
+                    if (next >= ids.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return symbols.name(ids[next++]);
+                }
+            };
+        }
     }
-}
\ No newline at end of file
+}
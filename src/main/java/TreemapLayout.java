@@ -0,0 +1,197 @@
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Squarified treemap of a list of squares: each gets a cell whose area is proportional to
+ * its lines of code, with the cells kept as close to square as the algorithm of Bruls,
+ * Huizing and van Wijk allows. The layout is computed once for a size and never changes;
+ * a {@link RectIndex} over the cells answers which square is under a point.
+ *
+ * @author Aiden Rodriguez - GH Aiden-Rodriguez
+ * @author Brandon Powell - GH Bpowell5184
+ * @version 1.0
+ */
+public final class TreemapLayout {
+
+    private final List<Square> squares;
+    private final int width;
+    private final int height;
+    private final double[] x;
+    private final double[] y;
+    private final double[] cellWidth;
+    private final double[] cellHeight;
+    private final RectIndex index;
+
+    private TreemapLayout(List<Square> squares, int width, int height) {
+        this.squares = squares;
+        this.width = width;
+        this.height = height;
+        int n = squares.size();
+        x = new double[n];
+        y = new double[n];
+        cellWidth = new double[n];
+        cellHeight = new double[n];
+        if (n > 0 && width > 0 && height > 0) {
+            layout();
+        }
+        index = RectIndex.build(x, y, cellWidth, cellHeight, n);
+    }
+
+    public static TreemapLayout compute(List<Square> squares, int width, int height) {
+        return new TreemapLayout(squares, width, height);
+    }
+
+    /**
+     * Weight of a square; empty files still get a cell.
+     */
+    static double weightOf(Square square) {
+        return Math.max(1, square.getLinesOfCode());
+    }
+
+    private void layout() {
+        int n = squares.size();
+        double[] weights = new double[n];
+        int[] items = new int[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = weightOf(squares.get(i));
+            items[i] = i;
+        }
+        squarify(weights, items, 0, 0, width, height, x, y, cellWidth, cellHeight);
+    }
+
+    /**
+     * Lays out the given items in a rectangle with areas proportional to their weights, which
+     * must be positive, writing each item's cell to the output arrays at its own index.
+     */
+    static void squarify(double[] weights, int[] items, double left, double top, double width, double height,
+                         double[] x, double[] y, double[] cellWidth, double[] cellHeight) {
+        int n = items.length;
+        if (n == 0) {
+            return;
+        }
+
+        // Largest first, as the squarified algorithm expects; positive floats sort by their bits
+        long[] packed = new long[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            double weight = weights[items[i]];
+            packed[i] = ((long) (Integer.MAX_VALUE - Float.floatToIntBits((float) weight)) << 32) | i;
+            total += weight;
+        }
+        Arrays.sort(packed);
+        int[] order = new int[n];
+        double[] area = new double[n];
+        double scale = width * height / total;
+        for (int i = 0; i < n; i++) {
+            order[i] = items[(int) packed[i]];
+            area[i] = weights[order[i]] * scale;
+        }
+
+        double rx = left;
+        double ry = top;
+        double rw = width;
+        double rh = height;
+        int start = 0;
+        while (start < n) {
+            // Grow the row along the shorter side while its worst aspect ratio improves
+            double side = Math.min(rw, rh);
+            double sum = area[start];
+            double largest = sum;
+            double worst = worstRatio(sum, largest, sum, side);
+            int end = start + 1;
+            while (end < n) {
+                double next = area[end];
+                double ratio = worstRatio(sum + next, largest, next, side);
+                if (ratio > worst) {
+                    break;
+                }
+                sum += next;
+                worst = ratio;
+                end++;
+            }
+            if (end == n) {
+                // The last row takes what is left, so rounding never leaves a gap
+                sum = rw * rh;
+            }
+
+            if (rw >= rh) {
+                // Column on the left, cells stacked top to bottom
+                double columnWidth = rh > 0 ? sum / rh : 0;
+                double cy = ry;
+                for (int i = start; i < end; i++) {
+                    double cellSize = i == end - 1 ? ry + rh - cy : area[i] / columnWidth;
+                    set(order[i], rx, cy, columnWidth, cellSize, x, y, cellWidth, cellHeight);
+                    cy += cellSize;
+                }
+                rx += columnWidth;
+                rw -= columnWidth;
+            } else {
+                // Row along the top, cells left to right
+                double rowHeight = rw > 0 ? sum / rw : 0;
+                double cx = rx;
+                for (int i = start; i < end; i++) {
+                    double cellSize = i == end - 1 ? rx + rw - cx : area[i] / rowHeight;
+                    set(order[i], cx, ry, cellSize, rowHeight, x, y, cellWidth, cellHeight);
+                    cx += cellSize;
+                }
+                ry += rowHeight;
+                rh -= rowHeight;
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * Worst aspect ratio of a row with the given total, largest and smallest cell area laid
+     * along a side of the given length.
+     */
+    private static double worstRatio(double sum, double largest, double smallest, double side) {
+        double sideSquared = side * side;
+        double sumSquared = sum * sum;
+        return Math.max(sideSquared * largest / sumSquared, sumSquared / (sideSquared * smallest));
+    }
+
+    private static void set(int cell, double cx, double cy, double cw, double ch,
+                            double[] x, double[] y, double[] cellWidth, double[] cellHeight) {
+        x[cell] = cx;
+        y[cell] = cy;
+        cellWidth[cell] = Math.max(0, cw);
+        cellHeight[cell] = Math.max(0, ch);
+    }
+
+    public boolean matches(List<Square> squares, int width, int height) {
+        return this.squares == squares && this.width == width && this.height == height;
+    }
+
+    public int size() {
+        return squares.size();
+    }
+
+    public Square getSquare(int cell) {
+        return squares.get(cell);
+    }
+
+    /**
+     * Pixel bounds of a cell. Edges are rounded, not sizes, so neighbouring cells meet exactly.
+     */
+    public Rectangle getBounds(int cell) {
+        int x0 = (int) Math.round(x[cell]);
+        int y0 = (int) Math.round(y[cell]);
+        int x1 = (int) Math.round(x[cell] + cellWidth[cell]);
+        int y1 = (int) Math.round(y[cell] + cellHeight[cell]);
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    /**
+     * Returns the cell under a pixel, or -1. The pixel's center is tested, which agrees with
+     * the rounded bounds.
+     */
+    public int cellAt(int px, int py) {
+        return index.find(px + 0.5, py + 0.5);
+    }
+
+    public RectIndex getIndex() {
+        return index;
+    }
+}